@@ -0,0 +1,41 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사용자별 계좌 목록 조회 처리량 : 캐시 사용(true) vs DB 직접 조회(false)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountCacheBenchmark {
+    @Param({"true", "false"})
+    public String cache;
+
+    private BenchmarkFixture fixture;
+    private AccountService accountService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture("account.cache.enabled=" + cache)
+                .withAccounts(1000, 1_000_000L);
+        accountService = fixture.getBean(AccountService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<AccountDto> getAccountsByUserId() {
+        int index = ThreadLocalRandom.current().nextInt(fixture.size());
+        return accountService.getAccountsByUserId(fixture.userId(index));
+    }
+}
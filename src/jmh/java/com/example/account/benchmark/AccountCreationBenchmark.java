@@ -0,0 +1,83 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 계좌 생성 처리량을 스레드 수(1 / 8 / 64)별로 잰다. (번호 블록 예약 + 사용자 계좌 수 증가 + INSERT)
+ * JMH 스레드 수는 @Param 으로 바꿀 수 없어서 스레드 수마다 벤치마크 메서드를 따로 둔다.
+ * -PjmhThreads 를 주면 메서드별 스레드 수를 덮어쓰므로 주지 않고 실행한다.
+ * ./gradlew jmh -PjmhIncludes=AccountCreationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountCreationBenchmark {
+    // 사용자 한 명당 계좌는 최대 10개이므로 반복 하나에서 20,000 개까지 만들 수 있다.
+    private static final int NEW_USERS_PER_ITERATION = 2_000;
+
+    private BenchmarkFixture fixture;
+    private AccountService accountService;
+
+    private long firstNewUserId;
+    private final AtomicLong createdAccounts = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture();
+        accountService = fixture.getBean(AccountService.class);
+    }
+
+    /**
+     * 계좌가 없는 사용자를 반복마다 새로 준비한다.
+     */
+    @Setup(Level.Iteration)
+    public void prepareNewUsers() {
+        firstNewUserId = fixture.insertUsers(NEW_USERS_PER_ITERATION);
+        createdAccounts.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public AccountDto createAccount1Thread() {
+        return createAccount();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public AccountDto createAccount8Threads() {
+        return createAccount();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public AccountDto createAccount64Threads() {
+        return createAccount();
+    }
+
+    private AccountDto createAccount() {
+        long sequence = createdAccounts.getAndIncrement();
+        // 동시에 들어온 호출끼리는 서로 다른 사용자를 쓰게 한다. (같은 사용자 행 락 대기를 재지 않도록)
+        long userId = firstNewUserId + sequence % NEW_USERS_PER_ITERATION;
+        try {
+            return accountService.createAccount(userId, 1_000L);
+        } catch (AccountException e) {
+            // 반복 하나에서 준비한 사용자를 다 쓴 경우 (MAX_ACCOUNT_PER_USER_10)
+            return null;
+        } catch (CannotCreateTransactionException e) {
+            // 커넥션 풀(16개) 대기 시간(3초) 초과 : 실패한 요청도 처리량에 포함된다.
+            return null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 잔액 사용 처리량 비교 : 조건부 UPDATE(ATOMIC, 요청마다 DB 왕복) vs 메모리 잔액 엔진(ENGINE)
+ * accounts 가 4 이면 몇 개 계좌에 요청이 몰리는 경우다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class BalanceEngineBenchmark {
+    @Param({"ATOMIC", "ENGINE"})
+    public String mode;
+
+    @Param({"1000", "4"})
+    public int accounts;
+
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+    private Path journalDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        journalDirectory = Files.createTempDirectory("balance-engine");
+        fixture = new BenchmarkFixture(
+                "account.concurrency.mode=ATOMIC",
+                "account.engine.enabled=" + mode.equals("ENGINE"),
+                "account.engine.journal-dir=" + journalDirectory)
+                .withAccounts(accounts, 1_000_000_000L);
+        transactionService = fixture.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+        try (Stream<Path> files = Files.walk(journalDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        int index = ThreadLocalRandom.current().nextInt(fixture.size());
+        try {
+            return transactionService.useBalance(
+                    fixture.userId(index), fixture.accountNumber(index), 10L);
+        } catch (AccountException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 하나에 잔액 사용이 몰릴 때 잔액 칸 수에 따른 처리량
+ * balanceSlots = 1 : 나누지 않은 계좌 (ATOMIC 모드의 조건부 UPDATE, 모든 요청이 계좌 행 하나에 줄 선다)
+ * balanceSlots > 1 : PUT /account/balance-slots 로 나눈 계좌 (칸마다 행 락이 따로 있다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class BalanceSlotBenchmark {
+    @Param({"1", "4", "16"})
+    public int balanceSlots;
+
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture("account.concurrency.mode=ATOMIC", "account.balance-slot.enabled=true")
+                .withAccounts(1, 1_000_000_000L);
+        if (balanceSlots > 1) {
+            fixture.getBean(AccountService.class)
+                    .splitBalance(fixture.userId(0), fixture.accountNumber(0), balanceSlots);
+        }
+        transactionService = fixture.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        try {
+            return transactionService.useBalance(fixture.userId(0), fixture.accountNumber(0), 10L);
+        } catch (AccountException e) {
+            return null;
+        }
+    }
+}
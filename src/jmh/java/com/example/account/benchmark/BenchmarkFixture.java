@@ -0,0 +1,107 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.service.AccountService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트 (내장 H2 + 내장 Redis)
+ * 기본은 웹 서버 없이 띄우고, HTTP 부하가 필요하면 web(...) 으로 임의 포트에 톰캣까지 띄운다.
+ */
+public class BenchmarkFixture implements AutoCloseable {
+    // data.sql 의 사용자(1~3)나 hibernate_sequence 와 겹치지 않는 id
+    private static final long FIRST_USER_ID = 1_000_000L;
+
+    private final ConfigurableApplicationContext context;
+    private long nextUserId = FIRST_USER_ID;
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<String> accountNumbers = new ArrayList<>();
+
+    public BenchmarkFixture(String... properties) {
+        this(WebApplicationType.NONE, properties);
+    }
+
+    public static BenchmarkFixture web(String... properties) {
+        List<String> args = new ArrayList<>(List.of(properties));
+        args.add("server.port=0");
+        return new BenchmarkFixture(WebApplicationType.SERVLET, args.toArray(new String[0]));
+    }
+
+    private BenchmarkFixture(WebApplicationType webApplicationType, String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.jpa.properties.hibernate.show_sql=false");
+        args.add("--logging.level.root=WARN");
+        for (String property : properties) {
+            // application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다.
+            args.add("--" + property);
+        }
+        this.context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * 사용자 한 명당 계좌 하나씩, 잔액이 충분한 계좌를 만든다.
+     */
+    public BenchmarkFixture withAccounts(int count, long initialBalance) {
+        JdbcTemplate jdbcTemplate = getBean(JdbcTemplate.class);
+        AccountService accountService = getBean(AccountService.class);
+        for (int i = 0; i < count; i++) {
+            long userId = nextUserId++;
+            jdbcTemplate.update("insert into account_user(id, name, create_at, update_at) "
+                    + "values (?, ?, now(), now())", userId, "bench-" + userId);
+            userIds.add(userId);
+            accountNumbers.add(accountService.createAccount(userId, initialBalance)
+                    .getAccountNumber());
+        }
+        return this;
+    }
+
+    /**
+     * 계좌 없는 사용자를 count 명 만든다.
+     *
+     * @return 첫 사용자 id (이후 id 는 1씩 증가)
+     */
+    public long insertUsers(int count) {
+        long firstUserId = nextUserId;
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long userId = nextUserId++;
+            rows.add(new Object[]{userId, "bench-" + userId});
+        }
+        getBean(JdbcTemplate.class).batchUpdate("insert into account_user(id, name, create_at, update_at) "
+                + "values (?, ?, now(), now())", rows);
+        return firstUserId;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int localPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public Long userId(int index) {
+        return userIds.get(index);
+    }
+
+    public String accountNumber(int index) {
+        return accountNumbers.get(index);
+    }
+
+    public int size() {
+        return accountNumbers.size();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.exception.AccountException;
+import com.example.account.service.RecentTransactionCache;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 취소 폭주 처리량 : 원거래마다 한 번씩 취소한다.
+ * lookup 이 CACHED 이면 원거래가 최근 거래 캐시에 있고, DB 이면 캐시에 없어 원거래와 취소 여부를 DB 에서 읽는다.
+ * 원거래가 모자라면 이미 취소된 거래를 다시 취소하게 되므로(TRANSACTION_ALREADY_CANCELED) originals 를 넉넉히 잡는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class CancelBalanceBenchmark {
+    private static final long AMOUNT = 10L;
+    // transaction_seq 와 겹치지 않는 id
+    private static final long FIRST_TRANSACTION_ID = 1_000_000_000L;
+
+    @Param({"ATOMIC", "ENGINE"})
+    public String mode;
+
+    @Param({"CACHED", "DB"})
+    public String lookup;
+
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"500000"})
+    public int originals;
+
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+    private Path journalDirectory;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        journalDirectory = Files.createTempDirectory("balance-engine");
+        fixture = new BenchmarkFixture(
+                "account.concurrency.mode=ATOMIC",
+                "account.engine.enabled=" + mode.equals("ENGINE"),
+                "account.engine.journal-dir=" + journalDirectory,
+                "account.cache.recent-transaction-max-size=" + originals)
+                .withAccounts(accounts, 1_000_000_000L);
+        transactionService = fixture.getBean(TransactionService.class);
+        insertOriginals();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+        try (Stream<Path> files = Files.walk(journalDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TransactionDto cancelBalance() {
+        int index = next.getAndIncrement() % originals;
+        try {
+            return transactionService.cancelBalance(
+                    transactionId(index), fixture.accountNumber(index % fixture.size()), AMOUNT);
+        } catch (AccountException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 계좌마다 돌아가며 잔액 사용 거래를 넣어둔다. (잔액은 그대로 두므로 취소하면 잔액이 늘어난다)
+     */
+    private void insertOriginals() {
+        JdbcTemplate jdbcTemplate = fixture.getBean(JdbcTemplate.class);
+        RecentTransactionCache recentTransactionCache = fixture.getBean(RecentTransactionCache.class);
+        List<Long> accountIds = new ArrayList<>(fixture.size());
+        for (int i = 0; i < fixture.size(); i++) {
+            accountIds.add(jdbcTemplate.queryForObject("select id from account where account_number = ?",
+                    Long.class, fixture.accountNumber(i)));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int i = 0; i < originals; i++) {
+            int account = i % fixture.size();
+            rows.add(new Object[]{FIRST_TRANSACTION_ID + i, USE.name(), S.name(),
+                    accountIds.get(account), AMOUNT, 1_000_000_000L, transactionId(i), now, now, now});
+            if (rows.size() == 10_000 || i == originals - 1) {
+                jdbcTemplate.batchUpdate("insert into transaction(id, transaction_type, transaction_result_type, "
+                        + "account_id, amount, balance_snap_shot, transaction_id, transacted_at, create_at, update_at) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+
+            if (lookup.equals("CACHED")) {
+                recentTransactionCache.put(TransactionSummary.builder()
+                        .transactionId(transactionId(i))
+                        .accountNumber(fixture.accountNumber(account))
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(AMOUNT)
+                        .transactedAt(now)
+                        .build());
+            }
+        }
+    }
+
+    private static String transactionId(int index) {
+        return "bench-" + index;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용 처리량 비교 : 계좌 락(LOCK) vs 낙관적 락 + 재시도(OPTIMISTIC) vs 조건부 UPDATE(ATOMIC)
+ * accounts 가 클수록 경합이 적다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ConcurrencyModeBenchmark {
+    @Param({"LOCK", "OPTIMISTIC", "ATOMIC"})
+    public String mode;
+
+    @Param({"1000", "4"})
+    public int accounts;
+
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture("account.concurrency.mode=" + mode)
+                .withAccounts(accounts, 1_000_000_000L);
+        transactionService = fixture.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        int index = ThreadLocalRandom.current().nextInt(fixture.size());
+        try {
+            return transactionService.useBalance(
+                    fixture.userId(index), fixture.accountNumber(index), 10L);
+        } catch (AccountException e) {
+            // 락 대기 시간 초과 / 재시도 소진 : 실패한 요청도 처리량에 포함된다.
+            return null;
+        }
+    }
+}
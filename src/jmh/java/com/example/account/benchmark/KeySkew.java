@@ -0,0 +1,51 @@
+package com.example.account.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 벤치마크에서 계좌/사용자를 고르는 분포
+ * UNIFORM : 모두 같은 확률
+ * ZIPF : k 번째 계좌의 확률이 1/k^s 에 비례 (앞쪽 몇 개 계좌에 요청이 몰린다)
+ */
+public class KeySkew {
+    private static final double ZIPF_EXPONENT = 1.0;
+
+    private final int size;
+    private final double[] cumulative;
+
+    private KeySkew(int size, double[] cumulative) {
+        this.size = size;
+        this.cumulative = cumulative;
+    }
+
+    public static KeySkew of(String distribution, int size) {
+        if ("UNIFORM".equals(distribution)) {
+            return new KeySkew(size, null);
+        }
+        if (!"ZIPF".equals(distribution)) {
+            throw new IllegalArgumentException("unknown distribution : " + distribution);
+        }
+
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int k = 1; k <= size; k++) {
+            sum += 1.0 / Math.pow(k, ZIPF_EXPONENT);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return new KeySkew(size, cumulative);
+    }
+
+    public int next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (cumulative == null) {
+            return random.nextInt(size);
+        }
+
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, size - 1);
+    }
+}
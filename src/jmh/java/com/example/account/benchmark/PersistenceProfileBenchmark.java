@@ -0,0 +1,64 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 저장소 프로필별 잔액 사용 처리량 : 메모리 H2(default) vs 파일 H2(h2file)
+ * PostgreSQL 은 ACCOUNT_DB_URL 등을 지정하고 -p profile=postgres 로 실행한다. (Flyway 가 스키마를 만든다)
+ * 실행마다 새 DB 를 쓰도록 h2file 은 임시 디렉터리에 만든다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class PersistenceProfileBenchmark {
+    @Param({"default", "h2file"})
+    public String profile;
+
+    @Param({"1000"})
+    public int accounts;
+
+    private Path dataDir;
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("account-bench-db");
+        fixture = new BenchmarkFixture("spring.profiles.active=" + profile,
+                "account.datasource.h2-file-path=" + dataDir.resolve("account"),
+                "account.ledger.path=" + dataDir.resolve("transaction-ledger.journal"))
+                .withAccounts(accounts, 1_000_000_000L);
+        transactionService = fixture.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        int index = ThreadLocalRandom.current().nextInt(fixture.size());
+        try {
+            return transactionService.useBalance(
+                    fixture.userId(index), fixture.accountNumber(index), 10L);
+        } catch (AccountException e) {
+            return null;
+        }
+    }
+}
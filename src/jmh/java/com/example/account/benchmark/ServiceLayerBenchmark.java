@@ -0,0 +1,88 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 서비스 계층 기본 벤치마크 (내장 H2 + 내장 Redis, 기본 설정)
+ * 릴리스 사이의 성능 변화를 비교하기 위한 기준으로 쓴다.
+ * 스레드 수는 ./gradlew jmh -PjmhThreads=8 로 바꾼다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ServiceLayerBenchmark {
+    private static final int ACCOUNTS = 1000;
+    // 사용자 한 명당 계좌는 최대 10개
+    private static final int ACCOUNTS_PER_NEW_USER = 10;
+    private static final int NEW_USERS_PER_ITERATION = 20_000;
+
+    @Param({"UNIFORM", "ZIPF"})
+    public String skew;
+
+    private BenchmarkFixture fixture;
+    private AccountService accountService;
+    private TransactionService transactionService;
+    private KeySkew keySkew;
+
+    private long firstNewUserId;
+    private final AtomicLong createdAccounts = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture().withAccounts(ACCOUNTS, 1_000_000_000L);
+        accountService = fixture.getBean(AccountService.class);
+        transactionService = fixture.getBean(TransactionService.class);
+        keySkew = KeySkew.of(skew, ACCOUNTS);
+    }
+
+    /**
+     * createAccount 용으로 계좌가 없는 사용자를 반복마다 새로 준비한다.
+     */
+    @Setup(Level.Iteration)
+    public void prepareNewUsers() {
+        firstNewUserId = fixture.insertUsers(NEW_USERS_PER_ITERATION);
+        createdAccounts.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        int index = keySkew.next();
+        try {
+            return transactionService.useBalance(
+                    fixture.userId(index), fixture.accountNumber(index), 10L);
+        } catch (AccountException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public List<AccountDto> getAccountsByUserId() {
+        return accountService.getAccountsByUserId(fixture.userId(keySkew.next()));
+    }
+
+    @Benchmark
+    public AccountDto createAccount() {
+        long sequence = createdAccounts.getAndIncrement();
+        long userId = firstNewUserId + sequence / ACCOUNTS_PER_NEW_USER % NEW_USERS_PER_ITERATION;
+        try {
+            return accountService.createAccount(userId, 1_000L);
+        } catch (AccountException e) {
+            // 반복 하나에서 준비한 사용자를 다 쓴 경우 (MAX_ACCOUNT_PER_USER_10)
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.UuidTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 거래 id 생성 비교 : 예전 방식(UUID, 랜덤) vs 시간 순서(SNOWFLAKE)
+ * nextId : 생성만 (할당량은 -prof gc 의 gc.alloc.rate.norm 으로 본다)
+ * insert : transactionId unique 인덱스가 있는 transaction 테이블에 100건씩 배치 INSERT
+ *          (랜덤 키는 인덱스 여기저기에, 시간 순서 키는 오른쪽 끝에만 들어간다)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class TransactionIdGeneratorBenchmark {
+    private static final int INSERT_BATCH = 100;
+    // transaction_seq 와 겹치지 않는 id
+    private static final long FIRST_TRANSACTION_ID = 2_000_000_000L;
+
+    @State(Scope.Benchmark)
+    public static class Generator {
+        @Param({"UUID", "SNOWFLAKE"})
+        public String strategy;
+
+        TransactionIdGenerator transactionIdGenerator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            transactionIdGenerator = strategy.equals("UUID")
+                    ? new UuidTransactionIdGenerator()
+                    : new SnowflakeTransactionIdGenerator(0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        private final AtomicLong nextRowId = new AtomicLong(FIRST_TRANSACTION_ID);
+        BenchmarkFixture fixture;
+        JdbcTemplate jdbcTemplate;
+        Long accountId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fixture = new BenchmarkFixture().withAccounts(1, 1_000_000_000L);
+            jdbcTemplate = fixture.getBean(JdbcTemplate.class);
+            accountId = jdbcTemplate.queryForObject("select id from account where account_number = ?",
+                    Long.class, fixture.accountNumber(0));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            fixture.close();
+        }
+    }
+
+    @Benchmark
+    public String nextId(Generator generator) {
+        return generator.transactionIdGenerator.nextId();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERT_BATCH)
+    public int[] insert(Generator generator, Database database) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < INSERT_BATCH; i++) {
+            rows.add(new Object[]{database.nextRowId.getAndIncrement(), database.accountId,
+                    generator.transactionIdGenerator.nextId(), now, now, now});
+        }
+        return database.jdbcTemplate.batchUpdate("insert into transaction(id, transaction_type, "
+                + "transaction_result_type, account_id, amount, balance_snap_shot, transaction_id, "
+                + "transacted_at, create_at, update_at) values (?, 'USE', 'S', ?, 10, 0, ?, ?, ?, ?)", rows);
+    }
+}
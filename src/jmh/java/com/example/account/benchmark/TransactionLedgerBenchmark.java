@@ -0,0 +1,55 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용 응답 시간 분포 비교 : 거래 내역 동기 저장(SYNC) vs 저널 기록 후 백그라운드 저장(WRITE_BEHIND)
+ * SampleTime 결과의 p0.50 / p0.99 를 비교한다. (기본 1 스레드, -t 로 조정)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionLedgerBenchmark {
+    @Param({"SYNC", "WRITE_BEHIND"})
+    public String ledger;
+
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+    private File journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        journal = File.createTempFile("transaction-ledger", ".journal");
+        journal.delete();
+        fixture = new BenchmarkFixture(
+                "account.concurrency.mode=ATOMIC",
+                "account.ledger.mode=" + ledger,
+                "account.ledger.path=" + journal.getAbsolutePath())
+                .withAccounts(1000, 1_000_000_000L);
+        transactionService = fixture.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+        journal.delete();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        int index = ThreadLocalRandom.current().nextInt(fixture.size());
+        try {
+            return transactionService.useBalance(
+                    fixture.userId(index), fixture.accountNumber(index), 10L);
+        } catch (AccountException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.account.benchmark;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.dto.UseBalance;
+import com.example.account.service.TransactionService;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용 요청 하나가 만드는 객체 크기 (-prof gc 의 gc.alloc.rate.norm = bytes/op 를 본다)
+ * - mapResponse : 거래 엔티티 -> TransactionDto -> 최근 거래 캐시 항목 / 응답 (DB 없이 매핑만)
+ * - useBalance : 서비스 호출부터 응답까지 (내장 H2, ATOMIC 모드)
+ * ./gradlew jmh -PjmhIncludes=UseBalanceAllocationBenchmark 에 -prof gc 를 더해 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UseBalanceAllocationBenchmark {
+    private static final int ACCOUNTS = 1000;
+
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture("account.concurrency.mode=ATOMIC")
+                .withAccounts(ACCOUNTS, 1_000_000_000L);
+        transactionService = fixture.getBean(TransactionService.class);
+        account = Account.builder()
+                .id(1L)
+                .accountUser(AccountUser.builder().id(1L).name("bench").build())
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1_000_000_000L)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public UseBalance.Response mapResponse() {
+        Transaction transaction = Transaction.builder()
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .account(account)
+                .amount(1_000L)
+                .balanceSnapShot(account.getBalance())
+                .transactionId("0a1b2c3d4e5f6071")
+                .transactedAt(LocalDateTime.now())
+                .build();
+        TransactionDto transactionDto = TransactionDto.fromEntity(transaction);
+        TransactionSummary.fromDto(transactionDto);
+        return UseBalance.Response.from(transactionDto);
+    }
+
+    @Benchmark
+    public UseBalance.Response useBalance() {
+        int index = ThreadLocalRandom.current().nextInt(fixture.size());
+        return UseBalance.Response.from(transactionService.useBalance(
+                fixture.userId(index), fixture.accountNumber(index), 10L));
+    }
+}
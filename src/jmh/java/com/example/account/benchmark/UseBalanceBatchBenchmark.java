@@ -0,0 +1,63 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용 BATCH_SIZE 건 처리량 비교 : 한 건씩 호출 vs 일괄 호출
+ * 점수는 항목 단위(ops = 잔액 사용 1건) 처리량
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(UseBalanceBatchBenchmark.BATCH_SIZE)
+public class UseBalanceBatchBenchmark {
+    static final int BATCH_SIZE = 100;
+
+    @Param({"100"})
+    public int accounts;
+
+    private BenchmarkFixture fixture;
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture().withAccounts(accounts, 1_000_000_000L);
+        transactionService = fixture.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    private List<UseBalance.Request> nextRequests() {
+        List<UseBalance.Request> requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int index = ThreadLocalRandom.current().nextInt(fixture.size());
+            requests.add(new UseBalance.Request(
+                    fixture.userId(index), fixture.accountNumber(index), 10L));
+        }
+        return requests;
+    }
+
+    @Benchmark
+    public void single(Blackhole blackhole) {
+        for (UseBalance.Request request : nextRequests()) {
+            blackhole.consume(transactionService.useBalance(
+                    request.getUserId(), request.getAccountNumber(), request.getAmount()));
+        }
+    }
+
+    @Benchmark
+    public List<UseBalance.Response> batch() {
+        return transactionService.useBalanceBatch(nextRequests());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.account.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP 부하 벤치마크 (클라이언트 500개, 톰캣 기본 스레드 200개)
+ * 100개 클라이언트는 한 계좌(hot)에 잔액 사용을 보내서 계좌 락 대기를 만들고,
+ * 400개 클라이언트는 다른 계좌들을 조회한다.
+ * SYNC 에서는 락을 기다리는 요청이 톰캣 스레드를 잡고 있어서 조회까지 밀리고,
+ * ASYNC 에서는 락 대기가 쓰기 풀 안에만 머무르는지를 본다.
+ * 응답 코드가 200 이 아니어도(락 획득 실패 등) 한 번의 요청으로 센다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WebLoadBenchmark {
+    private static final int ACCOUNTS = 1000;
+    private static final int HOT_ACCOUNT = 0;
+
+    @Param({"SYNC", "ASYNC"})
+    public String executionMode;
+
+    private BenchmarkFixture fixture;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.web("account.web.execution-mode=" + executionMode)
+                .withAccounts(ACCOUNTS, 1_000_000_000L);
+        baseUrl = "http://127.0.0.1:" + fixture.localPort();
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    @Group("hotAccount")
+    @GroupThreads(100)
+    public int useHotAccount() throws IOException, InterruptedException {
+        String body = "{\"userId\":" + fixture.userId(HOT_ACCOUNT)
+                + ",\"accountNumber\":\"" + fixture.accountNumber(HOT_ACCOUNT)
+                + "\",\"amount\":10}";
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/transaction/use"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    @Benchmark
+    @Group("hotAccount")
+    @GroupThreads(400)
+    public int queryOtherAccounts() throws IOException, InterruptedException {
+        int index = 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS - 1);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/transaction?limit=10&accountNumber=" + fixture.accountNumber(index))));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * 잔액을 변경하는 서비스 메서드에 붙이면
+ * 계좌 번호 단위로 락을 잡은 상태에서 메서드가 실행된다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface AccountLock {
+    /**
+     * 계좌 번호가 들어있는 파라미터 이름
+     */
+    String key() default "accountNumber";
+}
@@ -0,0 +1,18 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * 서비스 메서드에 붙이면 account.operation 타이머로 실행 시간과 결과를 기록한다.
+ * 결과(outcome) 태그 : SUCCESS, 실패한 ErrorCode, 그 밖의 예외는 ERROR
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface AccountMetric {
+    /**
+     * operation 태그 (예: use, cancel, create)
+     */
+    String value();
+}
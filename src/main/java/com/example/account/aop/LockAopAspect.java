@@ -0,0 +1,72 @@
+package com.example.account.aop;
+
+import com.example.account.service.BalanceSlotService;
+import com.example.account.service.LockService;
+import com.example.account.type.ConcurrencyMode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 트랜잭션이 커밋된 다음에 락이 풀려야 하므로
+ * 트랜잭션 어드바이스보다 바깥에서 실행되도록 높은 우선순위를 준다. (MetricAopAspect 바로 안쪽)
+ * account.concurrency.mode 가 LOCK 이 아니거나 BalanceEngine 을 쓰면 락을 잡지 않는다.
+ * 잔액을 여러 칸에 나눠 담은 계좌도 조건부 UPDATE 로만 바꾸므로 락을 잡지 않는다.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class LockAopAspect {
+    private final LockService lockService;
+    private final BalanceSlotService balanceSlotService;
+
+    @Value("${account.concurrency.mode:LOCK}")
+    private ConcurrencyMode mode = ConcurrencyMode.LOCK;
+
+    // 샤드 스레드 하나가 계좌를 순서대로 바꾸므로 락이 필요 없다.
+    @Value("${account.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    @Around("@annotation(com.example.account.aop.AccountLock)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        if (mode != ConcurrencyMode.LOCK || engineEnabled) {
+            // OPTIMISTIC : 버전 충돌은 BalanceUpdateExecutor 가 재시도로 처리한다.
+            // ATOMIC : 조건부 UPDATE 한 번으로 처리하므로 락이 필요 없다.
+            return pjp.proceed();
+        }
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        AccountLock accountLock = signature.getMethod().getAnnotation(AccountLock.class);
+        String accountNumber = findAccountNumber(pjp, accountLock.key());
+        if (balanceSlotService.isSplit(accountNumber)) {
+            return pjp.proceed();
+        }
+
+        lockService.lock(accountNumber);
+        try {
+            return pjp.proceed();
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private String findAccountNumber(ProceedingJoinPoint pjp, String key) {
+        String[] parameterNames = ((MethodSignature) pjp.getSignature()).getParameterNames();
+        Object[] args = pjp.getArgs();
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (parameterNames[i].equals(key)) {
+                return String.valueOf(args[i]);
+            }
+        }
+        throw new IllegalStateException(
+                "@AccountLock key parameter not found: " + key + " in " + pjp.getSignature());
+    }
+}
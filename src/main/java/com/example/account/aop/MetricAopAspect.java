@@ -0,0 +1,49 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 락 대기 시간까지 포함하도록 계좌 락 AOP 보다 바깥에서 실행된다.
+ * 백분위/히스토그램은 management.metrics.distribution 설정으로 켠다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class MetricAopAspect {
+    static final String TIMER_NAME = "account.operation";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(com.example.account.aop.AccountMetric)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        AccountMetric accountMetric = ((MethodSignature) pjp.getSignature()).getMethod()
+                .getAnnotation(AccountMetric.class);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "SUCCESS";
+        try {
+            return pjp.proceed();
+        } catch (AccountException e) {
+            outcome = e.getErrorCode() == null ? "ERROR" : e.getErrorCode().name();
+            throw e;
+        } catch (Throwable e) {
+            outcome = "ERROR";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .tag("operation", accountMetric.value())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
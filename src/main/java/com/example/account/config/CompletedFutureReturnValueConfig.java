@@ -0,0 +1,43 @@
+package com.example.account.config;
+
+import com.example.account.controller.CompletedFutureReturnValueHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.DeferredResultMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestResponseBodyMethodProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CompletedFutureReturnValueHandler 를 기본 future 처리보다 앞에 둔다.
+ * (WebMvcConfigurer 로 추가하면 기본 처리 뒤에 붙어서 CompletableFuture 에는 쓰이지 않는다)
+ * 웹 서버 없이 띄운 컨텍스트(벤치마크 등)에는 RequestMappingHandlerAdapter 가 없으므로 만들지 않는다.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class CompletedFutureReturnValueConfig implements InitializingBean {
+    private final RequestMappingHandlerAdapter handlerAdapter;
+
+    @Override
+    public void afterPropertiesSet() {
+        List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(handlerAdapter.getReturnValueHandlers());
+        handlers.add(0, new CompletedFutureReturnValueHandler(
+                find(handlers, RequestResponseBodyMethodProcessor.class),
+                find(handlers, DeferredResultMethodReturnValueHandler.class)));
+        handlerAdapter.setReturnValueHandlers(handlers);
+    }
+
+    private static HandlerMethodReturnValueHandler find(List<HandlerMethodReturnValueHandler> handlers,
+                                                        Class<?> type) {
+        return handlers.stream()
+                .filter(type::isInstance)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("return value handler not found : " + type));
+    }
+}
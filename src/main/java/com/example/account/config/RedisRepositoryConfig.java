@@ -6,6 +6,7 @@ import org.redisson.config.Config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 
 @Configuration
 public class RedisRepositoryConfig {
@@ -16,6 +17,7 @@ public class RedisRepositoryConfig {
     private int redisPort;
 
     @Bean
+    @DependsOn("localRedisConfig") // 락 AOP 처럼 일찍 만들어지는 빈이 있어도 내장 Redis 가 먼저 떠 있어야 한다
     public RedissonClient redissonClient() {
         Config config = new Config();
         config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
@@ -0,0 +1,48 @@
+package com.example.account.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * account.datasource.replica.enabled=true 이면 주 DB(spring.datasource)와 복제 DB(account.datasource.replica.pool)
+ * 커넥션 풀을 따로 두고, 읽기 전용 트랜잭션만 복제 DB 로 보낸다. (ReplicaRoutingDataSource, ReadReplicaRouter)
+ * 꺼져 있으면 이 설정은 없고 spring.datasource 하나만 쓴다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("account.datasource.replica.pool")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    /**
+     * JPA / Flyway 가 쓰는 DataSource
+     * 트랜잭션 시작 시점에는 읽기 전용 여부가 아직 정해지지 않았으므로 첫 SQL 을 실행할 때 커넥션을 고른다.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.account.config;
+
+import com.example.account.service.ReadReplicaRouter;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 읽기 전용 트랜잭션은 복제 DB, 그 외(쓰기 트랜잭션, 트랜잭션 밖, 주 DB 를 요구한 조회)는 주 DB 커넥션을 준다.
+ * 트랜잭션이 시작된 뒤에 고르도록 LazyConnectionDataSourceProxy 로 감싸서 쓴다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadReplicaRouter.isPrimaryRequired()) {
+            return REPLICA;
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * ASYNC 실행 모드에서 컨트롤러 요청을 넘겨받는 스레드 풀
+ * 잔액/계좌를 바꾸는 요청(락 대기 포함)과 조회 요청을 서로 다른 풀에서 실행해서
+ * 한 계좌에 락 대기가 몰려도 조회 요청과 톰캣 스레드는 막히지 않게 한다.
+ * 큐가 가득 차면 TaskRejectedException 으로 바로 거절한다.
+ */
+@Configuration
+public class RequestExecutorConfig {
+    @Value("${account.web.write-pool.size:32}")
+    private int writePoolSize;
+
+    @Value("${account.web.write-pool.queue-capacity:1000}")
+    private int writeQueueCapacity;
+
+    @Value("${account.web.read-pool.size:16}")
+    private int readPoolSize;
+
+    @Value("${account.web.read-pool.queue-capacity:1000}")
+    private int readQueueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor accountWriteExecutor() {
+        return executor("account-write-", writePoolSize, writeQueueCapacity);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor accountReadExecutor() {
+        return executor("account-read-", readPoolSize, readQueueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor executor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
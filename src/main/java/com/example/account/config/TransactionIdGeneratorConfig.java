@@ -0,0 +1,54 @@
+package com.example.account.config;
+
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.UuidTransactionIdGenerator;
+import com.example.account.type.TransactionIdStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 거래 id 생성 방식
+ * SNOWFLAKE : 시간 순서 16자리 hex (인스턴스마다 다른 node-id 필요), UUID : 예전 방식 32자리 랜덤 hex
+ * node-id 를 정하지 않으면 Redis 락(TXID_NODE:<id>)으로 다른 인스턴스가 쓰지 않는 node-id 를 빌린다.
+ * 락은 프로세스가 살아 있는 동안 Redisson watchdog 이 연장하고, 프로세스가 죽으면 lockWatchdogTimeout(30초) 뒤에 풀린다.
+ * (Redis 연결이 그보다 오래 끊기면 락이 풀려서 다른 인스턴스가 같은 node-id 를 빌릴 수 있다. 운영에서는 node-id 를 정해 두는 것이 확실하다)
+ * 빈 node-id 가 없으면 기동하지 않는다.
+ */
+@Slf4j
+@Configuration
+public class TransactionIdGeneratorConfig {
+    private static final String NODE_LOCK_PREFIX = "TXID_NODE:";
+
+    @Value("${account.transaction-id.strategy:SNOWFLAKE}")
+    private TransactionIdStrategy strategy;
+
+    // -1 : Redis 에서 빌린다.
+    @Value("${account.transaction-id.node-id:-1}")
+    private int nodeId;
+
+    @Bean
+    public TransactionIdGenerator transactionIdGenerator(RedissonClient redissonClient) {
+        if (strategy == TransactionIdStrategy.UUID) {
+            return new UuidTransactionIdGenerator();
+        }
+        return new SnowflakeTransactionIdGenerator(nodeId >= 0 ? nodeId : leaseNodeId(redissonClient));
+    }
+
+    private int leaseNodeId(RedissonClient redissonClient) {
+        for (int id = 0; id <= SnowflakeTransactionIdGenerator.MAX_NODE_ID; id++) {
+            RLock lock = redissonClient.getLock(NODE_LOCK_PREFIX + id);
+            // leaseTime 없이 잡아야 watchdog 이 연장한다. 종료할 때 풀지 않고 만료되게 둔다.
+            if (lock.tryLock()) {
+                log.info("transaction id node-id leased : {}", id);
+                return id;
+            }
+        }
+        throw new IllegalStateException("no free transaction id node-id (0~"
+                + SnowflakeTransactionIdGenerator.MAX_NODE_ID + "), set account.transaction-id.node-id");
+    }
+}
@@ -4,14 +4,19 @@ import com.example.account.domain.Account;
 import com.example.account.dto.AccountDto;
 import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
+import com.example.account.dto.DailySummary;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.SplitBalance;
 import com.example.account.service.AccountService;
 import com.example.account.service.RedisTestService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -19,38 +24,71 @@ import java.util.stream.Collectors;
 public class AccountController {
     private final AccountService accountService;
     private final RedisTestService redisTestService;
+    private final RequestExecutor requestExecutor;
 
     @PostMapping("/account")
-    public CreateAccount.Response createAccount(
+    public CompletableFuture<CreateAccount.Response> createAccount(
             @RequestBody @Valid CreateAccount.Request request) {
-        AccountDto accountDto = accountService.createAccount(
-                request.getUserId(),
-                request.getInitialBalance()
-        );
-        return CreateAccount.Response.from(accountDto);
+        return requestExecutor.write(() -> {
+            AccountDto accountDto = accountService.createAccount(
+                    request.getUserId(),
+                    request.getInitialBalance()
+            );
+            return CreateAccount.Response.from(accountDto);
+        });
     }
 
     @DeleteMapping("/account")
-    public DeleteAccount.Response createAccount(
+    public CompletableFuture<DeleteAccount.Response> createAccount(
             @RequestBody @Valid DeleteAccount.Request request) {
-        AccountDto accountDto = accountService.deleteAccount(
-                request.getUserId(),
-                request.getAccountNumber()
-        );
-        return DeleteAccount.Response.from(accountDto);
+        return requestExecutor.write(() -> {
+            AccountDto accountDto = accountService.deleteAccount(
+                    request.getUserId(),
+                    request.getAccountNumber()
+            );
+            return DeleteAccount.Response.from(accountDto);
+        });
+    }
+
+    /**
+     * 잔액 사용이 몰리는 계좌의 잔액을 여러 칸에 나눠 담는다.
+     */
+    @PutMapping("/account/balance-slots")
+    public CompletableFuture<SplitBalance.Response> splitBalance(
+            @RequestBody @Valid SplitBalance.Request request) {
+        return requestExecutor.write(() -> SplitBalance.Response.from(
+                accountService.splitBalance(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getBalanceSlots()
+                )));
     }
 
     @GetMapping("/account")
-    public List<AccountInfo> getAccountsByUserId(
+    public CompletableFuture<List<AccountInfo>> getAccountsByUserId(
             @RequestParam("user_id")Long userId
     ){
-        return accountService.getAccountsByUserId(userId)
+        return requestExecutor.read(() -> accountService.getAccountsByUserId(userId)
                 .stream().map(accountDto ->
                         AccountInfo.builder()
                         .accountNumber(accountDto.getAccountNumber())
                         .balance(accountDto.getBalance())
                         .build())
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 계좌 일별 요약 (기본 : 최근 30일)
+     */
+    @GetMapping("/account/{accountNumber}/daily")
+    public CompletableFuture<List<DailySummary>> getDailySummaries(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return requestExecutor.read(() -> accountService.getDailySummaries(accountNumber, start, end));
     }
 
     @GetMapping("/get-lock")
@@ -60,8 +98,8 @@ public class AccountController {
 
 
     @GetMapping("/account/{id}")
-    public Account getAccount(
+    public CompletableFuture<Account> getAccount(
             @PathVariable Long id) {
-        return accountService.getAccount(id);
+        return requestExecutor.read(() -> accountService.getAccount(id));
     }
 }
@@ -0,0 +1,61 @@
+package com.example.account.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 컨트롤러가 돌려준 CompletableFuture 가 이미 끝나 있으면 (SYNC 모드, 또는 ASYNC 모드에서 바로 거절된 요청)
+ * 비동기 디스패치(startAsync -> 다시 디스패치) 없이 그 자리에서 응답 본문으로 쓴다.
+ * 아직 끝나지 않은 future 는 스프링 기본 처리(DeferredResult)로 넘긴다.
+ * 실패한 future 는 원래 예외를 던져서 비동기 디스패치 때와 같은 예외 처리를 받게 한다.
+ */
+public class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final HandlerMethodReturnValueHandler bodyHandler;
+    private final HandlerMethodReturnValueHandler futureHandler;
+
+    /**
+     * @param bodyHandler   @ResponseBody 처리 (RequestResponseBodyMethodProcessor)
+     * @param futureHandler 끝나지 않은 future 처리 (DeferredResultMethodReturnValueHandler)
+     */
+    public CompletedFutureReturnValueHandler(HandlerMethodReturnValueHandler bodyHandler,
+                                             HandlerMethodReturnValueHandler futureHandler) {
+        this.bodyHandler = bodyHandler;
+        this.futureHandler = futureHandler;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return CompletableFuture.class.isAssignableFrom(returnType.getParameterType())
+                && bodyHandler.supportsReturnType(returnType);
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+        if (future == null || !future.isDone()) {
+            futureHandler.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+            return;
+        }
+
+        Object value;
+        try {
+            value = future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+        bodyHandler.handleReturnValue(value, returnType.nested(), mavContainer, webRequest);
+    }
+}
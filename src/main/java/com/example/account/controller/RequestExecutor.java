@@ -0,0 +1,62 @@
+package com.example.account.controller;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.RequestExecutionMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 컨트롤러 요청 실행기
+ * SYNC 모드 : 서블릿(톰캣) 스레드에서 바로 실행한다.
+ * ASYNC 모드 : 쓰기/조회 풀로 넘기고 서블릿 스레드는 반환한다.
+ * 어느 모드든 CompletableFuture 를 돌려주고, 예외는 실패한 future 로 전달한다.
+ * SYNC 모드의 future 는 이미 끝나 있으므로 CompletedFutureReturnValueHandler 가 비동기 디스패치 없이 바로 응답한다.
+ */
+@Component
+public class RequestExecutor {
+    private final RequestExecutionMode mode;
+    private final ThreadPoolTaskExecutor writeExecutor;
+    private final ThreadPoolTaskExecutor readExecutor;
+
+    public RequestExecutor(@Value("${account.web.execution-mode:SYNC}") RequestExecutionMode mode,
+                           @Qualifier("accountWriteExecutor") ThreadPoolTaskExecutor writeExecutor,
+                           @Qualifier("accountReadExecutor") ThreadPoolTaskExecutor readExecutor) {
+        this.mode = mode;
+        this.writeExecutor = writeExecutor;
+        this.readExecutor = readExecutor;
+    }
+
+    /**
+     * 잔액/계좌를 바꾸는 요청 (계좌 락 대기가 있을 수 있음)
+     */
+    public <T> CompletableFuture<T> write(Supplier<T> action) {
+        return execute(writeExecutor, action);
+    }
+
+    public <T> CompletableFuture<T> read(Supplier<T> action) {
+        return execute(readExecutor, action);
+    }
+
+    private <T> CompletableFuture<T> execute(ThreadPoolTaskExecutor executor, Supplier<T> action) {
+        if (mode == RequestExecutionMode.SYNC) {
+            try {
+                return CompletableFuture.completedFuture(action.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(action, executor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.TOO_MANY_REQUESTS));
+        }
+    }
+}
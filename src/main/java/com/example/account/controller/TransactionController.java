@@ -1,16 +1,38 @@
 package com.example.account.controller;
 
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.QueryTransactionPage;
+import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.service.IdempotencyService;
+import com.example.account.service.TransactionExporter;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ExportFormat;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -18,39 +40,141 @@ import javax.validation.Valid;
      * 1. 잔액 사용
      * 2. 잔액 사용 취소
      * 3. 거래 확인
+     * 4. 계좌 간 이체
      */
     @Slf4j
+    @Validated
     @RestController
     @RequiredArgsConstructor
     public class TransactionController {
+        private static final int MAX_BATCH_SIZE = 1000;
+        private static final int MAX_PAGE_SIZE = 100;
+        private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
         private final TransactionService transactionService;
+        private final IdempotencyService idempotencyService;
+        private final RequestExecutor requestExecutor;
+        private final TransactionExporter transactionExporter;
 
+    /**
+     * Idempotency-Key 헤더가 있으면 같은 키의 재요청에는 처음 응답을 그대로 돌려준다.
+     * 실패한 요청은 실패 거래(F)로 기록하되, 저장은 백그라운드에서 한다.
+     */
     @PostMapping("/transaction/use")
-    public UseBalance.Response useBalance(
+    public CompletableFuture<UseBalance.Response> useBalance(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Valid @RequestBody UseBalance.Request request
     ) {
-        TransactionDto transactionDto = transactionService.useBalance(request.getUserId(),
-                request.getAccountNumber(), request.getAmount());
+        return requestExecutor.write(() -> idempotencyService.execute("use", idempotencyKey, request,
+                UseBalance.Response.class, () -> {
+                    try {
+                        TransactionDto transactionDto = transactionService.useBalance(request.getUserId(),
+                                request.getAccountNumber(), request.getAmount());
+
+                        return UseBalance.Response.from(transactionDto);
+                    } catch (AccountException e) {
+                        transactionService.saveFailedUseTransaction(
+                                request.getAccountNumber(), request.getAmount());
+                        throw e;
+                    }
+                }));
+    }
+
+    /**
+     * 잔액 사용 일괄 요청 (최대 1000건)
+     * 항목마다 성공(S)/실패(F) 결과를 요청 순서대로 돌려준다.
+     */
+    @PostMapping("/transaction/use/batch")
+    public CompletableFuture<List<UseBalance.Response>> useBalanceBatch(
+            @Valid @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE) List<UseBalance.Request> requests
+    ) {
+        return requestExecutor.write(() -> transactionService.useBalanceBatch(requests));
+    }
+
+    @GetMapping("/transaction/{transactionId}")
+    public CompletableFuture<QueryTransactionResponse> queryTransaction(
+            @PathVariable String transactionId
+    ) {
+        return requestExecutor.read(() ->
+                QueryTransactionResponse.from(transactionService.queryTransaction(transactionId)));
+    }
 
-        return UseBalance.Response.from(
-                transactionService.useBalance(request.getUserId(),
-                        request.getAccountNumber(), request.getAmount()));
+    /**
+     * 계좌 거래 목록 (최신순, 최대 100건)
+     * 다음 페이지는 응답의 next 를 after 로 넘겨서 조회한다.
+     */
+    @GetMapping("/transaction")
+    public CompletableFuture<QueryTransactionPage> queryTransactions(
+            @RequestParam String accountNumber,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int limit
+    ) {
+        return requestExecutor.read(() -> transactionService.queryTransactions(accountNumber, after, limit));
+    }
 
+    /**
+     * 계좌 거래 내역 내보내기 ([from, to), 오래된 순)
+     * 길이 제한이 없는 응답이라 비동기 요청 시간 제한을 받지 않도록 요청 스레드에서 바로 쓴다.
+     */
+    @GetMapping("/transaction/export")
+    public void exportTransactions(
+            @RequestParam String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(format == ExportFormat.CSV
+                ? "text/csv;charset=UTF-8"
+                : MediaType.APPLICATION_NDJSON_VALUE + ";charset=UTF-8");
+        transactionExporter.export(accountNumber, from, to, format, response.getOutputStream());
     }
 
+    /**
+     * 잔액 사용 취소 (전액, 1년 이내, 한 번만)
+     */
     @PostMapping("/transaction/cancel")
-    public CancelBalance.Response useBalance(
+    public CompletableFuture<CancelBalance.Response> cancelBalance(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Valid @RequestBody CancelBalance.Request request
     ) {
-        TransactionDto transactionDto = transactionService.useBalance(request.getUserId(),
-                request.getAccountNumber(), request.getAmount());
-
-        return UseBalance.Response.from(
-                transactionService.useBalance(request.getUserId(),
-                        request.getAccountNumber(), request.getAmount()));
+        return requestExecutor.write(() -> idempotencyService.execute("cancel", idempotencyKey, request,
+                CancelBalance.Response.class, () -> {
+                    try {
+                        TransactionDto transactionDto = transactionService.cancelBalance(request.getTransactionId(),
+                                request.getAccountNumber(), request.getAmount());
 
+                        return CancelBalance.Response.from(transactionDto);
+                    } catch (AccountException e) {
+                        transactionService.saveFailedCancelTransaction(
+                                request.getAccountNumber(), request.getAmount());
+                        throw e;
+                    }
+                }));
+    }
 
+    /**
+     * 계좌 간 이체 (본인 계좌에서 출금)
+     * 실패한 이체는 출금 계좌의 실패 거래(TRANSFER_OUT, F)로 기록한다.
+     */
+    @PostMapping("/transaction/transfer")
+    public CompletableFuture<TransferBalance.Response> transferBalance(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @Valid @RequestBody TransferBalance.Request request
+    ) {
+        return requestExecutor.write(() -> idempotencyService.execute("transfer", idempotencyKey, request,
+                TransferBalance.Response.class, () -> {
+                    try {
+                        TransactionDto transactionDto = transactionService.transferBalance(request.getUserId(),
+                                request.getFromAccountNumber(), request.getToAccountNumber(), request.getAmount());
 
+                        return TransferBalance.Response.from(transactionDto, request.getToAccountNumber());
+                    } catch (AccountException e) {
+                        transactionService.saveFailedTransferTransaction(
+                                request.getFromAccountNumber(), request.getAmount());
+                        throw e;
+                    }
+                }));
     }
 }
 
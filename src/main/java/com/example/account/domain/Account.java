@@ -4,6 +4,7 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -18,12 +19,16 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @EntityListeners(AuditingEntityListener.class) //자동으로 날짜 저장 config 전체 설정필요
+@Table(indexes = {
+        @Index(name = "ux_account_account_number", columnList = "accountNumber", unique = true),
+        @Index(name = "ix_account_account_user_id", columnList = "account_user_id")
+})
 public class Account {
     @Id
     @GeneratedValue
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // 소유자 id 는 프록시에서 바로 읽힌다. 나머지가 필요하면 fetch join 으로 조회
     private AccountUser accountUser;
     private String accountNumber;
 
@@ -31,6 +36,13 @@ public class Account {
     private AccountStatus accountStatus;
     private Long balance;
 
+    // 잔액을 나눠 담는 칸 수 (0 이면 나누지 않는다. 나누면 balance 가 0번 칸, AccountBalanceSlot 이 나머지 칸)
+    @ColumnDefault("0")
+    private int balanceSlots;
+
+    @Version // 동시에 잔액을 수정하면 나중에 커밋하는 쪽이 실패한다 (OPTIMISTIC 모드)
+    private Long version;
+
     private LocalDateTime registeredAt;
     private LocalDateTime unregisteredAt;
 
@@ -52,6 +64,6 @@ public class Account {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
 
         }
-        balance -= amount;
+        balance += amount;
     }
 }
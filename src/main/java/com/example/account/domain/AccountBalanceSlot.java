@@ -0,0 +1,39 @@
+package com.example.account.domain;
+
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 잔액을 나눠 담은 계좌의 칸 (1 ~ balanceSlots - 1 번, 0번 칸은 account.balance 자체)
+ * 계좌 잔액 = account.balance + 칸 잔액 합계
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(indexes = {
+        @Index(name = "ux_account_balance_slot_account_slot", columnList = "account_id, slotNo", unique = true)
+})
+public class AccountBalanceSlot {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+    private int slotNo;
+    private Long balance;
+
+    @CreatedDate
+    private LocalDateTime createAt;
+    @LastModifiedDate
+    private LocalDateTime updateAt;
+}
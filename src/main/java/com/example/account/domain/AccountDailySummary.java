@@ -0,0 +1,49 @@
+package com.example.account.domain;
+
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 계좌별 일별 거래 요약 (거래가 있었던 날만 있다)
+ * 거래 내역을 저장하는 트랜잭션에서 DailySummaryAggregator 가 더한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(indexes = {
+        @Index(name = "ux_account_daily_summary_account_date", columnList = "account_id, summaryDate", unique = true)
+})
+public class AccountDailySummary {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+    private LocalDate summaryDate;
+
+    private Long debitAmount;   // 잔액 사용 + 이체 출금 합계
+    private Long creditAmount;  // 잔액 사용 취소 + 이체 입금 합계
+    private Long transactionCount;
+
+    private Long closingBalance; // 그날 마지막 거래 뒤의 잔액
+    private LocalDateTime closingAt;
+
+    @Version
+    private Long version;
+
+    @CreatedDate
+    private LocalDateTime createAt;
+    @LastModifiedDate
+    private LocalDateTime updateAt;
+}
@@ -2,6 +2,7 @@ package com.example.account.domain;
 
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -27,6 +28,10 @@ public class AccountUser {
 
     private String name;
 
+    // 개설한 계좌 수 (해지한 계좌도 센다). AccountUserRepository.incrementAccountCount 로만 늘린다.
+    @ColumnDefault("0")
+    private int accountCount;
+
     @CreatedDate
     private LocalDateTime createAt;
     @LastModifiedDate
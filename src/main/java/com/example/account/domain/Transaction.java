@@ -18,13 +18,15 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-
-
-
-
+@Table(indexes = {
+        @Index(name = "ux_transaction_transaction_id", columnList = "transactionId", unique = true),
+        // 계좌별 거래 목록 (최신순 keyset 페이지 조회)
+        @Index(name = "ix_transaction_account_transacted_at", columnList = "account_id, transactedAt, id")
+})
 public class Transaction {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", allocationSize = 50) // 배치 INSERT 시 id 를 미리 받아둔다
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -33,7 +35,7 @@ public class Transaction {
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // 계좌 번호가 필요한 조회는 fetch join 으로 함께 읽는다
     private Account account;
     private Long amount;
 
@@ -0,0 +1,32 @@
+package com.example.account.dto;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import lombok.*;
+
+/**
+ * 캐시에 두는 계좌 정보 (소유자, 상태, 번호, 잔액 칸 수)
+ * 잔액은 담지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class AccountSummary {
+    private Long id;
+    private Long userId;
+    private String accountNumber;
+    private AccountStatus accountStatus;
+    private int balanceSlots;
+
+    public static AccountSummary fromEntity(Account account) {
+        return AccountSummary.builder()
+                .id(account.getId())
+                .userId(account.getAccountUser().getId())
+                .accountNumber(account.getAccountNumber())
+                .accountStatus(account.getAccountStatus())
+                .balanceSlots(account.getBalanceSlots())
+                .build();
+    }
+}
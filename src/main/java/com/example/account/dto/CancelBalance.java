@@ -6,10 +6,10 @@ import lombok.*;
 import javax.validation.constraints.*;
 import java.time.LocalDateTime;
 
-public class CancleBalance {
+public class CancelBalance {
     /**
      * {
-     * "transactionId":"sdfsdfasdfadsf",
+     * "transactionId":"c2033bb6d82a4250aecf8e27c49b63f6",
      * "accountNumber":"1000000000",
      * "amount":1000
      * }
@@ -18,9 +18,9 @@ public class CancleBalance {
     @Setter
     @AllArgsConstructor
     public static class Request {
-        @NotNull
-        @Min(1)
-        private Long transactionId;
+        @NotBlank
+        @Size(max = 40)
+        private String transactionId;
 
         @NotBlank
         @Size(min = 10, max = 10)
@@ -52,8 +52,8 @@ public class CancleBalance {
         private String accountNumber;
         private TransactionResultType transactionResult;
         private String transactionId;
-        private Long amount;
-        private LocalDateTime registeredAt;
+        private long amount;
+        private LocalDateTime transactedAt;
 
         public static Response from(TransactionDto transactiondto) {
             return Response.builder()
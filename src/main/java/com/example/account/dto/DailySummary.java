@@ -0,0 +1,27 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * {
+ * "date":"2022-06-01",
+ * "debitAmount":3000,
+ * "creditAmount":1000,
+ * "transactionCount":3,
+ * "closingBalance":8000
+ * }
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySummary {
+    private LocalDate date;
+    private Long debitAmount;
+    private Long creditAmount;
+    private Long transactionCount;
+    private Long closingBalance;
+}
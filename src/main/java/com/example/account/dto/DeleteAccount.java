@@ -20,7 +20,7 @@ public class DeleteAccount {
 
         @NotBlank
         @Size(min = 10, max = 10)
-        private Long accountNumber;
+        private String accountNumber;
     }
 
     @Getter
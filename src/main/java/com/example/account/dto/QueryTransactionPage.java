@@ -0,0 +1,23 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * 계좌 거래 목록 한 페이지 (최신순)
+ * {
+ * "transactions":[ ... ],
+ * "next":"c2033bb6d82a4250aecf8e27c49b63f6"
+ * }
+ * next 가 있으면 after=next 로 다음 페이지를 조회한다. 마지막 페이지면 없다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueryTransactionPage {
+    private List<QueryTransactionResponse> transactions;
+    private String next;
+}
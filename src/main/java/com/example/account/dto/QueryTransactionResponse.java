@@ -2,13 +2,41 @@ package com.example.account.dto;
 
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
+import lombok.*;
 
+import java.time.LocalDateTime;
+
+/**
+ * {
+ * "accountNumber":"1000000000",
+ * "transactionType":"USE",
+ * "transactionResult":"S",
+ * "transactionId":"c2033bb6d82a4250aecf8e27c49b63f6",
+ * "amount":1000,
+ * "transactedAt":"2022-06-01T23:26:14.671859"
+ * }
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
 public class QueryTransactionResponse {
     private String accountNumber;
     private TransactionType transactionType;
-    private TransactionResultType transactionResultType;
+    private TransactionResultType transactionResult;
     private String transactionId;
-    private Long amount;
-    private LocaldateTime transactedAt;
+    private long amount;
+    private LocalDateTime transactedAt;
 
+    public static QueryTransactionResponse from(TransactionDto transactionDto) {
+        return QueryTransactionResponse.builder()
+                .accountNumber(transactionDto.getAccountNumber())
+                .transactionType(transactionDto.getTransactionType())
+                .transactionResult(transactionDto.getTransactionResultType())
+                .transactionId(transactionDto.getTransactionId())
+                .amount(transactionDto.getAmount())
+                .transactedAt(transactionDto.getTransactedAt())
+                .build();
+    }
 }
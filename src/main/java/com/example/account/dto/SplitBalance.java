@@ -0,0 +1,54 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+public class SplitBalance {
+    /**
+     * {
+     * "userId":1,
+     * "accountNumber":"1000000000",
+     * "balanceSlots":8
+     * }
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+
+        @Min(2)
+        @Max(64)
+        private int balanceSlots;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private Long userId;
+        private String accountNumber;
+        private int balanceSlots;
+
+        public static Response from(AccountSummary accountSummary) {
+            return Response.builder()
+                    .userId(accountSummary.getUserId())
+                    .accountNumber(accountSummary.getAccountNumber())
+                    .balanceSlots(accountSummary.getBalanceSlots())
+                    .build();
+        }
+    }
+}
@@ -1,16 +1,15 @@
 package com.example.account.dto;
 
-import com.example.account.domain.Account;
 import com.example.account.domain.Transaction;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.*;
 
-import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
-import javax.persistence.ManyToOne;
 import java.time.LocalDateTime;
 
+/**
+ * 거래 요청마다 만들어지므로 계좌 엔티티는 들고 있지 않고, 금액은 long 으로 둔다.
+ */
 @Setter
 @Getter
 @NoArgsConstructor
@@ -20,9 +19,8 @@ public class TransactionDto {
     private String accountNumber;
     private TransactionType transactionType;
     private TransactionResultType transactionResultType;
-    private Account account;
-    private Long amount;
-    private Long balanceSnapShot;
+    private long amount;
+    private long balanceSnapShot;
     private String transactionId;
     private LocalDateTime transactedAt;
 
@@ -32,10 +30,10 @@ public class TransactionDto {
                 .transactionType(transaction.getTransactionType())
                 .transactionResultType(transaction.getTransactionResultType())
                 .amount(transaction.getAmount())
-                .balanceSnapShot(transaction.getTransactionId())
+                .balanceSnapShot(transaction.getBalanceSnapShot())
+                .transactionId(transaction.getTransactionId())
                 .transactedAt(transaction.getTransactedAt())
                 .build();
-
     }
 
 }
@@ -0,0 +1,52 @@
+package com.example.account.dto;
+
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 최근 거래 캐시에 두는 거래 정보 (취소 검증에 필요한 것만)
+ * canceled 는 이 인스턴스에서 취소한 경우에만 true 가 된다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class TransactionSummary {
+    private String transactionId;
+    private String accountNumber;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private long amount;
+    private LocalDateTime transactedAt;
+    private boolean canceled;
+
+    public static TransactionSummary fromDto(TransactionDto transactionDto) {
+        return TransactionSummary.builder()
+                .transactionId(transactionDto.getTransactionId())
+                .accountNumber(transactionDto.getAccountNumber())
+                .transactionType(transactionDto.getTransactionType())
+                .transactionResultType(transactionDto.getTransactionResultType())
+                .amount(transactionDto.getAmount())
+                .transactedAt(transactionDto.getTransactedAt())
+                .build();
+    }
+
+    /**
+     * 캐시에 없어서 DB 에서 읽은 원거래 (취소 거래가 저장돼 있으면 canceled)
+     */
+    public static TransactionSummary fromEntity(Transaction transaction, boolean canceled) {
+        return TransactionSummary.builder()
+                .transactionId(transaction.getTransactionId())
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .transactedAt(transaction.getTransactedAt())
+                .canceled(canceled)
+                .build();
+    }
+}
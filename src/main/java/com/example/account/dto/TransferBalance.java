@@ -0,0 +1,75 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+public class TransferBalance {
+    /**
+     * {
+     * "userId":1,
+     * "fromAccountNumber":"1000000000",
+     * "toAccountNumber":"1000000001",
+     * "amount":1000
+     * }
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String fromAccountNumber;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+    }
+
+    /**
+     * transactionId 는 출금 거래 id (입금 거래 id 는 뒤에 "-I" 가 붙는다)
+     * {
+     * "fromAccountNumber":"1000000000",
+     * "toAccountNumber":"1000000001",
+     * "transactionResult":"S",
+     * "transactionId":"0a1b2c3d4e5f6071",
+     * "amount":1000,
+     * "transactedAt":"2022-06-01T23:26:14.671859"
+     * }
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private long amount;
+        private LocalDateTime transactedAt;
+
+        public static Response from(TransactionDto transactionDto, String toAccountNumber) {
+            return Response.builder()
+                    .fromAccountNumber(transactionDto.getAccountNumber())
+                    .toAccountNumber(toAccountNumber)
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+    }
+}
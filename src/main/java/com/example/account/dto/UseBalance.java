@@ -1,6 +1,8 @@
 package com.example.account.dto;
 
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import javax.transaction.Transactional;
@@ -53,8 +55,11 @@ public class UseBalance {
         private String accountNumber;
         private TransactionResultType transactionResult;
         private String transactionId;
-        private Long amount;
-        private LocalDateTime registeredAt;
+        private long amount;
+        private LocalDateTime transactedAt;
+
+        @JsonInclude(JsonInclude.Include.NON_NULL) // 실패한 경우에만 내려준다.
+        private ErrorCode errorCode;
 
         public static Response from(TransactionDto transactiondto) {
             return Response.builder()
@@ -66,6 +71,16 @@ public class UseBalance {
                     .build();
         }
 
+        public static Response failed(Request request, ErrorCode errorCode) {
+            return Response.builder()
+                    .accountNumber(request.getAccountNumber())
+                    .transactionResult(TransactionResultType.F)
+                    .amount(request.getAmount())
+                    .transactedAt(LocalDateTime.now())
+                    .errorCode(errorCode)
+                    .build();
+        }
+
 
 
     }
@@ -0,0 +1,38 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 칸 잔액은 조건부 UPDATE 로만 바꾼다. (버전 충돌이나 롤백 없이 칸마다 행 락만 잠깐 잡는다)
+ */
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+    List<AccountBalanceSlot> findByAccountIdOrderBySlotNo(Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.account.id = :accountId")
+    long sumBalance(@Param("accountId") Long accountId);
+
+    /**
+     * 칸 잔액이 충분할 때만 차감한다. 반환값이 0 이면 차감하지 않은 것 (칸이 없거나 잔액 부족)
+     */
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance - :amount, s.updateAt = CURRENT_TIMESTAMP "
+            + "where s.account.id = :accountId and s.slotNo = :slotNo and s.balance >= :amount")
+    int useBalance(@Param("accountId") Long accountId,
+                   @Param("slotNo") int slotNo,
+                   @Param("amount") Long amount);
+
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance + :amount, s.updateAt = CURRENT_TIMESTAMP "
+            + "where s.account.id = :accountId and s.slotNo = :slotNo")
+    int addBalance(@Param("accountId") Long accountId,
+                   @Param("slotNo") int slotNo,
+                   @Param("amount") Long amount);
+}
@@ -0,0 +1,44 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountDailySummary;
+import com.example.account.dto.DailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AccountDailySummaryRepository extends JpaRepository<AccountDailySummary, Long> {
+    /**
+     * (계좌, 날짜) 행에 한 번의 UPDATE 로 더한다. 반환값이 0 이면 그날 행이 아직 없는 것
+     * 마감 잔액은 더 늦은 거래일 때만 바꾼다. (closingAt 을 바꾸기 전 값과 비교하도록 closingBalance 를 먼저 쓴다)
+     */
+    @Modifying
+    @Query("update AccountDailySummary s set s.debitAmount = s.debitAmount + :debit, "
+            + "s.creditAmount = s.creditAmount + :credit, "
+            + "s.transactionCount = s.transactionCount + :count, "
+            + "s.closingBalance = case when s.closingAt > :closingAt then s.closingBalance else :closingBalance end, "
+            + "s.closingAt = case when s.closingAt > :closingAt then s.closingAt else :closingAt end, "
+            + "s.version = s.version + 1, s.updateAt = CURRENT_TIMESTAMP "
+            + "where s.account.id = :accountId and s.summaryDate = :date")
+    int add(@Param("accountId") Long accountId,
+            @Param("date") LocalDate date,
+            @Param("debit") long debit,
+            @Param("credit") long credit,
+            @Param("count") long count,
+            @Param("closingBalance") long closingBalance,
+            @Param("closingAt") LocalDateTime closingAt);
+
+    @Query("select new com.example.account.dto.DailySummary("
+            + "s.summaryDate, s.debitAmount, s.creditAmount, s.transactionCount, s.closingBalance) "
+            + "from AccountDailySummary s where s.account.id = :accountId "
+            + "and s.summaryDate between :from and :to order by s.summaryDate")
+    List<DailySummary> findDailySummaries(@Param("accountId") Long accountId,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+}
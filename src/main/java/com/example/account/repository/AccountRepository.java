@@ -3,9 +3,16 @@ package com.example.account.repository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDto;
+import com.example.account.type.AccountStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,9 +20,84 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findFirstByOrderByIdDesc();
 
-    Integer countByAccountUser(AccountUser accountUser);
+    /**
+     * 발급된 계좌 번호 중 가장 큰 번호 (번호가 모두 10자리라 문자열 순서가 숫자 순서와 같다)
+     */
+    @Query("select max(a.accountNumber) from Account a")
+    Optional<String> findMaxAccountNumber();
+
     Optional<Account> findByAccountNumber(String AccountNumber);
 
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
     List<Account> findByAccountUser(AccountUser accountUser);
 
+    @EntityGraph(attributePaths = "accountUser")
+    Optional<Account> findWithAccountUserById(Long id);
+
+    /**
+     * 계좌 버전만 조회한다. (TransactionLedger 가 커밋 여부를 판단할 때 쓴다)
+     */
+    @Query("select a.id as id, a.version as version from Account a where a.id in :ids")
+    List<AccountVersion> findVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 엔티티를 만들지 않고 조회 응답용 DTO 를 바로 만든다. (쿼리 한 번)
+     * 잔액을 나눠 담은 계좌는 칸 잔액까지 더한다.
+     */
+    @Query("select new com.example.account.dto.AccountDto("
+            + "a.accountUser.id, a.accountNumber, "
+            + "a.balance + (select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.account = a), "
+            + "a.registeredAt, a.unregisteredAt) "
+            + "from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountDto> findAccountDtosByUserId(@Param("userId") Long userId);
+
+    /**
+     * 잔액이 충분하고 사용 중인 본인 계좌일 때만 한 번의 UPDATE 로 잔액을 차감한다.
+     * 반환값(변경된 행 수)이 0 이면 차감하지 않은 것
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1, "
+            + "a.updateAt = CURRENT_TIMESTAMP "
+            + "where a.accountNumber = :accountNumber and a.accountUser.id = :userId "
+            + "and a.balance >= :amount and a.accountStatus = :status")
+    int useBalance(@Param("userId") Long userId,
+                   @Param("accountNumber") String accountNumber,
+                   @Param("amount") Long amount,
+                   @Param("status") AccountStatus status);
+
+    /**
+     * 사용 중인 계좌일 때만 한 번의 UPDATE 로 취소 금액을 더한다.
+     * 반환값(변경된 행 수)이 0 이면 더하지 않은 것
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1, "
+            + "a.updateAt = CURRENT_TIMESTAMP "
+            + "where a.accountNumber = :accountNumber and a.accountStatus = :status")
+    int cancelBalance(@Param("accountNumber") String accountNumber,
+                      @Param("amount") Long amount,
+                      @Param("status") AccountStatus status);
+
+    /**
+     * 칸 수만 바꾼다. (버전을 올리지 않아서 잔액을 바꾸는 거래와 충돌하지 않는다)
+     * 반환값이 0 이면 이미 slots 칸 이상으로 나뉜 것
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Account a set a.balanceSlots = :slots where a.id = :id and a.balanceSlots < :slots")
+    int increaseBalanceSlots(@Param("id") Long id, @Param("slots") int slots);
+
+    /**
+     * BalanceEngine 이 메모리에서 바꾼 잔액을 그대로 덮어쓴다. (스냅샷)
+     * 같은 트랜잭션에서 저장한 거래 내역이 clear 로 사라지지 않도록 먼저 flush 한다.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1, "
+            + "a.updateAt = CURRENT_TIMESTAMP where a.id = :id")
+    int updateBalance(@Param("id") Long id, @Param("balance") Long balance);
+
+    interface AccountVersion {
+        Long getId();
+
+        Long getVersion();
+    }
 }
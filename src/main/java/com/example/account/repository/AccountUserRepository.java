@@ -2,10 +2,19 @@ package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
-
-
+    /**
+     * 계좌 수가 max 보다 작을 때만 1 늘린다. 반환값이 0 이면 사용자가 없거나 이미 max 개
+     * UPDATE 가 사용자 행을 잠그므로 같은 사용자의 동시 개설은 커밋 순서대로 한 건씩 비교된다.
+     */
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1 "
+            + "where u.id = :id and u.accountCount < :max")
+    int incrementAccountCount(@Param("id") Long id, @Param("max") int max);
 }
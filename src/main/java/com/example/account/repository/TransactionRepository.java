@@ -3,13 +3,66 @@ package com.example.account.repository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.QueryTransactionResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    @Query("select t.transactionId from Transaction t where t.transactionId in :transactionIds")
+    List<String> findSavedTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
+
+    @EntityGraph(attributePaths = "account")
+    Optional<Transaction> findByTransactionId(String transactionId);
+
+    boolean existsByTransactionId(String transactionId);
+
+    /**
+     * 계좌의 최신 거래부터 pageable 의 크기만큼 (OFFSET 없이 인덱스 앞에서부터 읽는다)
+     */
+    @Query("select t from Transaction t join fetch t.account where t.account.id = :accountId "
+            + "order by t.transactedAt desc, t.id desc")
+    List<Transaction> findLatestByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    /**
+     * (transactedAt, id) 가 커서보다 오래된 거래부터 pageable 의 크기만큼
+     * transactedAt <= 조건으로 인덱스 범위를 먼저 좁히고, 같은 시각은 id 로 구분한다.
+     */
+    @Query("select t from Transaction t join fetch t.account where t.account.id = :accountId "
+            + "and t.transactedAt <= :transactedAt "
+            + "and (t.transactedAt < :transactedAt or t.id < :id) "
+            + "order by t.transactedAt desc, t.id desc")
+    List<Transaction> findByAccountIdBefore(@Param("accountId") Long accountId,
+                                            @Param("transactedAt") LocalDateTime transactedAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
 
+    /**
+     * 계좌의 [from, to) 거래를 오래된 순으로 흘려보낸다. (내보내기용)
+     * 엔티티 대신 DTO 로 읽어서 영속성 컨텍스트에 쌓이지 않고, 드라이버는 fetch size 만큼씩 가져온다.
+     * 읽기 트랜잭션 안에서 소비하고 닫아야 한다.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.account.dto.QueryTransactionResponse("
+            + "a.accountNumber, t.transactionType, t.transactionResultType, t.transactionId, t.amount, t.transactedAt) "
+            + "from Transaction t join t.account a where a.id = :accountId "
+            + "and t.transactedAt >= :from and t.transactedAt < :to "
+            + "order by t.transactedAt, t.id")
+    Stream<QueryTransactionResponse> streamByAccountIdBetween(@Param("accountId") Long accountId,
+                                                               @Param("from") LocalDateTime from,
+                                                               @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,246 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 조회 캐시 (1차 : 프로세스 내 Caffeine, 2차 : Redis RMapCache)
+ * - 사용자 id -> 계좌 목록(AccountDto) : 조회 응답용. 잔액이 들어있으므로 잔액이 바뀌면 지운다.
+ * - 계좌 번호 -> AccountSummary : 소유자/상태만 담고 잔액은 담지 않는다.
+ * 잔액 차감 여부는 항상 DB 에서 읽은 잔액으로 판단하고, 캐시는 조회 응답과 소유자 확인에만 쓴다.
+ * 생성/해지/잔액 변경은 커밋 후에 Redis 와 이 프로세스의 캐시에서 지우고,
+ * 다른 노드의 프로세스 캐시는 Redis topic(ACCOUNT_CACHE:INVALIDATE)으로 지우라고 알린다.
+ * (지우기 직전에 DB 에서 읽은 값이 다시 들어가는 경우는 TTL 이 지나면 사라진다.)
+ * Redis 오류나 연결이 끊긴 동안 놓친 알림이 있으면, 다른 노드의 프로세스 캐시는 local-ttl-seconds 동안 이전 값을 보여줄 수 있다.
+ * Redis 오류는 캐시 미스로 취급한다.
+ * 복제 DB 를 쓰면 지울 때 그 사용자를 ReadReplicaRouter 에 표시해서, 어느 노드든 다시 채울 때 주 DB 에서 읽게 한다.
+ */
+@Slf4j
+@Component
+public class AccountCache {
+    private static final String USER_ACCOUNTS = "ACCOUNT_CACHE:USER";
+    private static final String ACCOUNTS = "ACCOUNT_CACHE:NUMBER";
+    private static final String INVALIDATE = "ACCOUNT_CACHE:INVALIDATE";
+    private static final String USER_PREFIX = "U:";
+    private static final String ACCOUNT_PREFIX = "A:";
+    private static final TypeReference<List<AccountDto>> ACCOUNT_LIST = new TypeReference<List<AccountDto>>() {
+    };
+
+    private final boolean enabled;
+    private final long remoteTtlSeconds;
+    private final ObjectMapper objectMapper;
+    private final ReadReplicaRouter readReplicaRouter;
+
+    private final Cache<Long, List<AccountDto>> localUserAccounts;
+    private final Cache<String, AccountSummary> localAccounts;
+    private final RMapCache<String, String> remoteUserAccounts;
+    private final RMapCache<String, String> remoteAccounts;
+    private final RTopic invalidations;
+
+    private final Counter remoteHitCounter;
+    private final Counter remoteMissCounter;
+
+    public AccountCache(RedissonClient redissonClient,
+                        ObjectMapper objectMapper,
+                        ReadReplicaRouter readReplicaRouter,
+                        MeterRegistry meterRegistry,
+                        @Value("${account.cache.enabled:true}") boolean enabled,
+                        @Value("${account.cache.local-max-size:10000}") long localMaxSize,
+                        @Value("${account.cache.local-ttl-seconds:30}") long localTtlSeconds,
+                        @Value("${account.cache.remote-ttl-seconds:300}") long remoteTtlSeconds) {
+        this.enabled = enabled;
+        this.remoteTtlSeconds = remoteTtlSeconds;
+        this.objectMapper = objectMapper;
+        this.readReplicaRouter = readReplicaRouter;
+
+        this.localUserAccounts = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        this.localAccounts = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localUserAccounts, "account.user");
+        CaffeineCacheMetrics.monitor(meterRegistry, localAccounts, "account.number");
+
+        this.remoteUserAccounts = redissonClient.getMapCache(USER_ACCOUNTS, StringCodec.INSTANCE);
+        this.remoteAccounts = redissonClient.getMapCache(ACCOUNTS, StringCodec.INSTANCE);
+        this.invalidations = redissonClient.getTopic(INVALIDATE, StringCodec.INSTANCE);
+        if (enabled) {
+            this.invalidations.addListener(String.class, (channel, message) -> invalidateLocal(message));
+        }
+        this.remoteHitCounter = Counter.builder("account.cache.remote")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.remoteMissCounter = Counter.builder("account.cache.remote")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public Optional<List<AccountDto>> getAccountsByUserId(Long userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        List<AccountDto> accounts = localUserAccounts.getIfPresent(userId);
+        if (accounts == null) {
+            accounts = readRemote(remoteUserAccounts, userId.toString(), ACCOUNT_LIST);
+            if (accounts != null) {
+                localUserAccounts.put(userId, accounts);
+            }
+        }
+        return Optional.ofNullable(accounts);
+    }
+
+    public void putAccountsByUserId(Long userId, List<AccountDto> accounts) {
+        if (!enabled) {
+            return;
+        }
+        localUserAccounts.put(userId, accounts);
+        writeRemote(remoteUserAccounts, userId.toString(), accounts);
+    }
+
+    public Optional<AccountSummary> getAccount(String accountNumber) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        AccountSummary account = localAccounts.getIfPresent(accountNumber);
+        if (account == null) {
+            account = readRemote(remoteAccounts, accountNumber, new TypeReference<AccountSummary>() {
+            });
+            if (account != null) {
+                localAccounts.put(accountNumber, account);
+            }
+        }
+        return Optional.ofNullable(account);
+    }
+
+    public void putAccount(AccountSummary account) {
+        if (!enabled) {
+            return;
+        }
+        localAccounts.put(account.getAccountNumber(), account);
+        writeRemote(remoteAccounts, account.getAccountNumber(), account);
+    }
+
+    /**
+     * 잔액이나 계좌 목록이 바뀐 경우 (생성, 잔액 변경)
+     */
+    public void evictUserAccounts(Long userId) {
+        readReplicaRouter.markWritten(userId);
+        afterCommit(() -> {
+            localUserAccounts.invalidate(userId);
+            removeRemote(remoteUserAccounts, userId.toString());
+            publish(USER_PREFIX + userId);
+        });
+    }
+
+    /**
+     * 계좌 상태가 바뀐 경우 (해지)
+     */
+    public void evictAccount(Long userId, String accountNumber) {
+        readReplicaRouter.markWritten(userId);
+        afterCommit(() -> {
+            localUserAccounts.invalidate(userId);
+            localAccounts.invalidate(accountNumber);
+            removeRemote(remoteUserAccounts, userId.toString());
+            removeRemote(remoteAccounts, accountNumber);
+            publish(USER_PREFIX + userId);
+            publish(ACCOUNT_PREFIX + accountNumber);
+        });
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private <T> T readRemote(RMapCache<String, String> map, String key, TypeReference<T> type) {
+        try {
+            String json = map.get(key);
+            if (json == null) {
+                remoteMissCounter.increment();
+                return null;
+            }
+            remoteHitCounter.increment();
+            return objectMapper.readValue(json, type);
+        } catch (RedisException | JsonProcessingException e) {
+            log.warn("account cache read failed : {}", key, e);
+            return null;
+        }
+    }
+
+    private void writeRemote(RMapCache<String, String> map, String key, Object value) {
+        try {
+            map.fastPutAsync(key, objectMapper.writeValueAsString(value), remoteTtlSeconds, TimeUnit.SECONDS);
+        } catch (RedisException | JsonProcessingException e) {
+            log.warn("account cache write failed : {}", key, e);
+        }
+    }
+
+    /**
+     * Redis 에서 먼저 지운 뒤에 알려야, 알림을 받은 노드가 Redis 에서 이전 값을 다시 채우지 않는다.
+     */
+    private void publish(String message) {
+        try {
+            invalidations.publish(message);
+        } catch (RedisException e) {
+            log.warn("account cache invalidation publish failed : {}", message, e);
+        }
+    }
+
+    private void invalidateLocal(String message) {
+        if (message.startsWith(USER_PREFIX)) {
+            localUserAccounts.invalidate(Long.valueOf(message.substring(USER_PREFIX.length())));
+        } else if (message.startsWith(ACCOUNT_PREFIX)) {
+            localAccounts.invalidate(message.substring(ACCOUNT_PREFIX.length()));
+        }
+    }
+
+    private void removeRemote(RMapCache<String, String> map, String key) {
+        try {
+            map.fastRemove(key);
+        } catch (RedisException e) {
+            log.warn("account cache evict failed : {}", key, e);
+        }
+    }
+}
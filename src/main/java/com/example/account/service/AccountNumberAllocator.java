@@ -0,0 +1,58 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 계좌 번호 발급기
+ * Redis INCRBY 로 번호 블록(blockSize 개)을 한 번에 예약하고
+ * 예약된 범위는 메모리에서 하나씩 꺼내 쓴다.
+ * 노드가 여러 대여도 블록이 겹치지 않으므로 번호가 중복되지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountNumberAllocator {
+    static final long ACCOUNT_NUMBER_BASE = 1_000_000_000L;
+    static final String SEQUENCE_KEY = "ACCOUNT_NUMBER_SEQ";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+
+    @Value("${account.number.block-size:100}")
+    private long blockSize = 100;
+
+    private long next;
+    private long limit;
+
+    public synchronized String nextAccountNumber() {
+        if (next >= limit) {
+            reserveBlock();
+        }
+        return String.valueOf(ACCOUNT_NUMBER_BASE + next++);
+    }
+
+    private void reserveBlock() {
+        RAtomicLong sequence = redissonClient.getAtomicLong(SEQUENCE_KEY);
+        if (sequence.get() == 0) {
+            // Redis 가 비어있을 때(최초 기동) 한 번만 DB 의 가장 큰 번호로 시퀀스를 맞춘다.
+            // 블록을 나눠 쓰므로 마지막에 만든 계좌(id)가 가장 큰 번호라는 보장이 없다.
+            sequence.compareAndSet(0, lastUsedSequence() + 1);
+        }
+
+        limit = sequence.addAndGet(blockSize);
+        next = limit - blockSize;
+        log.debug("account number block reserved [{}, {})", next, limit);
+    }
+
+    private long lastUsedSequence() {
+        return accountRepository.findMaxAccountNumber()
+                .map(accountNumber -> Long.parseLong(accountNumber) - ACCOUNT_NUMBER_BASE)
+                .orElse(-1L);
+    }
+}
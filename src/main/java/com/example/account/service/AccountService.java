@@ -1,9 +1,13 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountMetric;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummary;
+import com.example.account.dto.DailySummary;
 import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountDailySummaryRepository;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.ErrorCode;
@@ -11,9 +15,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Optional;
 
 import static com.example.account.type.AccountStatus.IN_USE;
 import static com.example.account.type.AccountStatus.UNREGISTERED;
@@ -22,30 +28,36 @@ import static com.example.account.type.ErrorCode.USER_NOT_FOUND;
 @Service
 @RequiredArgsConstructor
 public class AccountService {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountCache accountCache;
+    private final BalanceEngine balanceEngine;
+    private final AccountDailySummaryRepository accountDailySummaryRepository;
+    private final BalanceSlotService balanceSlotService;
+    private final ReadReplicaRouter readReplicaRouter;
 
     /**
-     * // 사용자가 있는지 조회
+     * // 사용자의 계좌 수를 조건부로 늘리고 (COUNT 조회 없이, 동시 개설도 10개를 넘지 않는다)
      * // 계좌의 번호를 생성하고
      * // 계좌를 저장하고, 그 정보를 넘긴다.
+     * 계좌 저장이 실패하면 같은 트랜잭션이라 늘린 계좌 수도 되돌아간다.
      */
+    @AccountMetric("create")
     @Transactional
     public AccountDto createAccount(Long userId, Long initialBalance) {
-
-        AccountUser accountUser = accountUserRepository.findById(userId)//나오는 기본적인 값이 optional
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-
-        if (accountRepository.countByAccountUser(accountUser) == 10) {
+        if (accountUserRepository.incrementAccountCount(userId, MAX_ACCOUNT_PER_USER) == 0) {
+            //값이 없으면 오류를 뱉고 있으면 정상 출력되는 코드 작성해준거
+            accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
             throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
         }
-        //값이 없으면 오류를 뱉고 있으면 정상 출력되는 코드 작성해준거
-        // RuntimeException, IllegalStateException 대체 가능
-        // 상황에 맞는 Exception 없을 시 customException 제작
+        // 사용자가 있는 것은 확인됐으므로 조회하지 않고 참조만 건다.
+        AccountUser accountUser = accountUserRepository.getById(userId);
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
 
         Account account = accountRepository.save(
                 Account.builder()
@@ -56,6 +68,7 @@ public class AccountService {
                         .registeredAt(LocalDateTime.now())
                         .build()
         );
+        accountCache.evictUserAccounts(userId);
 
         return AccountDto.fromEntity(account);
     }
@@ -65,19 +78,22 @@ public class AccountService {
         if (id < 0) {
             throw new RuntimeException("Minus");
         }
-        return accountRepository.findById(id).get();
+        return accountRepository.findWithAccountUserById(id).get();
     }
 
+    @AccountMetric("delete")
     @Transactional
-    public AccountDto deleteAccount(Long userId, Long accountNumber) {
+    public AccountDto deleteAccount(Long userId, String accountNumber) {
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(String.valueOf(accountNumber))
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
         validateDeleteAccount(accountUser, account);
+        balanceEngine.unregister(accountNumber);
 
         account.setAccountStatus(UNREGISTERED);
         account.setUnregisteredAt(LocalDateTime.now());
+        accountCache.evictAccount(userId, accountNumber);
         return AccountDto.fromEntity(account);
     }
 
@@ -86,24 +102,86 @@ public class AccountService {
             throw new AccountException(USER_NOT_FOUND);
         }
         if (account.getAccountStatus() == UNREGISTERED) {
-            throw new AccountException(USER_NOT_FOUND);
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() > 0) {
+        // 잔액 엔진을 켜면 DB 잔액이 늦으므로 엔진이 메모리 잔액으로 확인한다. (balanceEngine.unregister)
+        if (balanceEngine.isEnabled()) {
+            return;
+        }
+        // 잔액을 나눠 담은 계좌는 칸 잔액까지 비어 있어야 한다.
+        if (account.getBalance() > 0 || balanceSlotService.sumBalance(account.getId()) > 0) {
             throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
         }
     }
 
+    /**
+     * 잔액을 balanceSlots 칸에 나눠 담도록 바꾸고 바로 고르게 나눈다. (account.balance-slot.enabled 일 때 쓰인다)
+     * 칸을 없애려면 칸 잔액을 다시 모아야 하므로 칸 수는 늘리기만 한다.
+     */
+    @AccountMetric("split")
+    public AccountSummary splitBalance(Long userId, String accountNumber, int balanceSlots) {
+        AccountUser accountUser = accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (!Objects.equals(accountUser.getId(), account.getAccountUser().getId())) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() == UNREGISTERED) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (balanceSlots < account.getBalanceSlots()) {
+            throw new AccountException(ErrorCode.BALANCE_SLOTS_CANNOT_DECREASE);
+        }
 
-    @Transactional
+        return balanceSlotService.split(AccountSummary.fromEntity(account), balanceSlots);
+    }
+
+    /**
+     * 캐시에 있으면 DB 를 조회하지 않는다.
+     * 캐시에 없을 때만 읽기 전용 트랜잭션으로 복제 DB 에서 읽는다. (방금 계좌/잔액을 바꾼 사용자는 주 DB)
+     */
     public List<AccountDto> getAccountsByUserId(Long userId) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(()-> new AccountException(USER_NOT_FOUND));
+        Optional<List<AccountDto>> cached = accountCache.getAccountsByUserId(userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        List<AccountDto> accounts = readReplicaRouter.readAfterWrite(userId, () -> findAccountsByUserId(userId));
+        accountCache.putAccountsByUserId(userId, accounts);
+        return accounts;
+    }
 
-        List<Account> accounts = accountRepository
-                .findByAccountUser(accountUser);
+    /**
+     * 계좌 일별 요약 (from ~ to, 거래가 있었던 날만)
+     * 거래 내역을 훑지 않고 DailySummaryAggregator 가 미리 더해둔 요약만 읽는다.
+     * 요약은 원래 flush 주기만큼 늦게 반영되므로 복제 DB 에서 읽는다.
+     */
+    public List<DailySummary> getDailySummaries(String accountNumber, LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || to.isAfter(from.plusYears(1))) {
+            throw new AccountException(ErrorCode.INVALID_DATE_RANGE);
+        }
+
+        Long accountId = accountCache.getAccount(accountNumber)
+                .map(AccountSummary::getId)
+                .orElseGet(() -> {
+                    Account account = accountRepository.findByAccountNumber(accountNumber)
+                            .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+                    accountCache.putAccount(AccountSummary.fromEntity(account));
+                    return account.getId();
+                });
+        return readReplicaRouter.read(() -> accountDailySummaryRepository.findDailySummaries(accountId, from, to));
+    }
 
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+    /**
+     * 계좌가 있으면 사용자도 있으므로, 계좌가 없을 때만 사용자가 있는지 확인한다.
+     */
+    private List<AccountDto> findAccountsByUserId(Long userId) {
+        List<AccountDto> accounts = accountRepository.findAccountDtosByUserId(userId);
+        if (accounts.isEmpty()) {
+            accountUserRepository.findById(userId)
+                    .orElseThrow(()-> new AccountException(USER_NOT_FOUND));
+        }
+        return accounts;
     }
 }
@@ -0,0 +1,688 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 메모리 잔액 엔진 (account.engine.enabled)
+ * 계좌번호 해시로 계좌를 샤드에 나누고, 샤드마다 스레드 하나가 자기 큐(링 버퍼)의 명령을 순서대로 처리한다.
+ * 한 계좌는 항상 같은 스레드에서만 바뀌므로 락이 필요 없다.
+ *
+ * 1. 처음 들어온 계좌는 DB 에서 읽어서 샤드 메모리에 올리고, 이후 잔액은 메모리에서 바꾼다. (사용 / 취소 / 이체)
+ * 2. 잔액을 바꾼 명령은 샤드 저널(TransactionJournal)에 기록한 뒤에 응답한다.
+ *    fsync 를 켜면 큐에서 한 번에 꺼낸 명령들을 기록하고 한 번 내려쓴 다음 모두 응답한다.
+ *    내려쓰기가 실패해도 메모리와 저널에 이미 반영된 명령은 성공으로 응답한다. (스냅샷이 DB 에 반영한다)
+ * 3. 스냅샷 스레드가 주기적으로 저널을 읽어 거래 내역과 마지막 잔액을 한 트랜잭션으로 DB 에 반영한다.
+ * 4. 재시작하면 샤드를 띄우기 전에 저널에 남은 내용을 먼저 DB 에 반영한다.
+ *
+ * 잔액을 메모리에서 가지고 있으므로 인스턴스 하나에서만 켜야 한다.
+ * account 테이블의 잔액과 거래 조회는 스냅샷 주기만큼 늦게 반영된다.
+ */
+@Slf4j
+@Component
+public class BalanceEngine {
+    private static final String JOURNAL_PREFIX = "shard-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int MAX_DRAIN = 256;
+    // 샤드마다 기억하는 최근 취소 원거래 수 (스냅샷 전이라 DB 에서 아직 확인할 수 없는 취소를 막는다)
+    private static final int RECENT_CANCELS = 65_536;
+    // 이체 입금이 실패해서 출금 계좌로 되돌린 거래 id = 출금 거래 id + 접미사
+    private static final String TRANSFER_REFUND_SUFFIX = "-R";
+
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final TransactionLedger transactionLedger;
+    private final AccountCache accountCache;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final int shardCount;
+    private final int ringSize;
+    private final Path journalDirectory;
+    private final int journalCapacityBytes;
+    private final boolean fsync;
+    private final int snapshotBatchSize;
+    private final long snapshotIntervalMillis;
+
+    // 스냅샷 뒤에 계좌 목록 캐시를 비울 사용자를 찾기 위한 계좌 id -> 소유자 id
+    private final Map<Long, Long> accountOwners = new ConcurrentHashMap<>();
+    private Shard[] shards;
+    private Thread snapshotter;
+    private CountDownLatch stopping;
+    private volatile boolean running;
+
+    public BalanceEngine(AccountRepository accountRepository,
+                         AccountUserRepository accountUserRepository,
+                         TransactionLedger transactionLedger,
+                         AccountCache accountCache,
+                         TransactionIdGenerator transactionIdGenerator,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${account.engine.enabled:false}") boolean enabled,
+                         @Value("${account.engine.shards:4}") int shardCount,
+                         @Value("${account.engine.ring-size:8192}") int ringSize,
+                         @Value("${account.engine.journal-dir:./data/balance-engine}") String journalDirectory,
+                         @Value("${account.engine.journal-capacity-mb:16}") int journalCapacityMb,
+                         @Value("${account.engine.fsync:false}") boolean fsync,
+                         @Value("${account.engine.snapshot-batch-size:1000}") int snapshotBatchSize,
+                         @Value("${account.engine.snapshot-interval-ms:50}") long snapshotIntervalMillis) {
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.transactionLedger = transactionLedger;
+        this.accountCache = accountCache;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.shardCount = shardCount;
+        this.ringSize = ringSize;
+        this.journalDirectory = Paths.get(journalDirectory);
+        this.journalCapacityBytes = journalCapacityMb * 1024 * 1024;
+        this.fsync = fsync;
+        this.snapshotBatchSize = snapshotBatchSize;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Files.createDirectories(journalDirectory);
+        recoverJournals();
+
+        running = true;
+        stopping = new CountDownLatch(1);
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, openJournal(journalDirectory.resolve(JOURNAL_PREFIX + i + JOURNAL_SUFFIX)));
+            shards[i].start();
+        }
+        snapshotter = new Thread(this::snapshotLoop, "balance-engine-snapshot");
+        snapshotter.setDaemon(true);
+        snapshotter.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (shards == null) {
+            return;
+        }
+
+        running = false;
+        stopping.countDown(); // 스냅샷 주기를 기다리지 않고 깨운다.
+        for (Shard shard : shards) {
+            shard.thread.join();
+        }
+        snapshotter.join();
+        for (Shard shard : shards) {
+            while (snapshot(shard.journal, false) > 0) {
+                // 종료 전에 남은 잔액과 거래 내역을 모두 반영한다.
+            }
+            shard.journal.close();
+        }
+    }
+
+    TransactionJournal openJournal(Path file) throws IOException {
+        return new TransactionJournal(file, journalCapacityBytes, false);
+    }
+
+    /**
+     * 지난 실행의 저널(샤드 수가 바뀌었어도 디렉터리의 모든 저널)을 끝까지 DB 에 반영한다.
+     * DB 에 커밋한 뒤 반영 표시를 하기 전에 죽었을 수 있으므로 이미 저장된 거래 내역은 건너뛴다.
+     */
+    private void recoverJournals() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                journalDirectory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path file : files) {
+                try (TransactionJournal journal = new TransactionJournal(file, (int) Files.size(file), false)) {
+                    if (journal.pendingCount() > 0) {
+                        log.info("replaying {} balance changes from {}", journal.pendingCount(), file);
+                    }
+                    while (snapshot(journal, true) > 0) {
+                        // 남은 내용을 모두 반영한다.
+                    }
+                }
+            }
+        }
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        return await(submit(Command.use(userId, accountNumber, amount, transactionIdGenerator.nextId())));
+    }
+
+    /**
+     * 원거래 검증(계좌, 금액, 기간)은 TransactionService 에서 끝낸 뒤에 호출한다.
+     * 같은 원거래의 취소가 겹치면 샤드 안에서 먼저 처리된 쪽만 반영한다.
+     */
+    public TransactionDto cancelBalance(String originalTransactionId, String cancelTransactionId,
+                                        String accountNumber, Long amount) {
+        return await(submit(Command.cancel(originalTransactionId, cancelTransactionId, accountNumber, amount)));
+    }
+
+    /**
+     * 출금 계좌 샤드에서 차감(TRANSFER_OUT)한 다음 입금 계좌 샤드에서 더한다(TRANSFER_IN).
+     * 두 계좌가 다른 샤드일 수 있어 한 번에 반영하지 못하므로, 입금이 실패하면(해지된 계좌 등)
+     * 출금 계좌에 되돌리는 입금(출금 거래 id + "-R")을 넣고 입금 실패 사유로 응답한다.
+     * 출금이 반영된 뒤의 명령은 큐가 차 있어도 버리지 않고 자리가 날 때까지 기다린다.
+     */
+    public TransactionDto transferBalance(Long userId, String fromAccountNumber, String toAccountNumber,
+                                          Long amount, String transactionId, String transferInTransactionId) {
+        TransactionDto transferOut = await(submit(
+                Command.transferOut(userId, fromAccountNumber, amount, transactionId)));
+        try {
+            await(submitWaiting(Command.transferIn(toAccountNumber, amount, transferInTransactionId)));
+        } catch (AccountException e) {
+            refund(fromAccountNumber, amount, transactionId);
+            throw e;
+        }
+        return transferOut;
+    }
+
+    private void refund(String fromAccountNumber, Long amount, String transactionId) {
+        try {
+            await(submitWaiting(Command.refund(fromAccountNumber, amount, transactionId + TRANSFER_REFUND_SUFFIX)));
+        } catch (RuntimeException e) {
+            // 저널이 가득 찬 경우 등 : 출금만 반영된 이체라 수동으로 맞춰야 한다.
+            log.error("failed to refund transfer {} of {} to {}", transactionId, amount, fromAccountNumber, e);
+        }
+    }
+
+    /**
+     * 요청을 모두 샤드에 넣은 다음 결과를 기다린다. 같은 계좌의 요청은 요청 순서대로 처리된다.
+     */
+    public List<UseBalance.Response> useBalanceBatch(List<UseBalance.Request> requests) {
+        List<CompletableFuture<TransactionDto>> results = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            results.add(submit(Command.use(request.getUserId(), request.getAccountNumber(),
+                    request.getAmount(), transactionIdGenerator.nextId())));
+        }
+
+        List<UseBalance.Response> responses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                responses.add(UseBalance.Response.from(await(results.get(i))));
+            } catch (AccountException e) {
+                responses.add(UseBalance.Response.failed(requests.get(i), e.getErrorCode()));
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * 해지 트랜잭션 안에서 메모리의 계좌를 해지 상태로 바꾼다.
+     * DB 잔액은 스냅샷만큼 늦으므로 메모리 잔액이 남아 있는지 샤드에서 확인하고, 남아 있으면 BALANCE_NOT_EMPTY 로 실패한다.
+     * 해지 상태로 바꾼 뒤에는 사용/입금을 받지 않고, 해지 트랜잭션이 롤백되면 다시 사용 중으로 되돌린다.
+     */
+    public void unregister(String accountNumber) {
+        if (!enabled) {
+            return;
+        }
+        await(submit(Command.unregister(accountNumber)));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    submitWaiting(Command.reopen(accountNumber));
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<TransactionDto> submit(Command command) {
+        if (!shardOf(command).ring.offer(command)) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.TOO_MANY_REQUESTS));
+        }
+        return command.result;
+    }
+
+    private CompletableFuture<TransactionDto> submitWaiting(Command command) {
+        try {
+            shardOf(command).ring.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return command.result;
+    }
+
+    private Shard shardOf(Command command) {
+        if (!running) {
+            throw new IllegalStateException("balance engine is not running");
+        }
+        return shards[Math.floorMod(command.accountNumber.hashCode(), shardCount)];
+    }
+
+    /**
+     * 큐에 들어간 명령은 반드시 처리되므로 시간 제한 없이 기다린다.
+     * (중간에 포기하고 실패로 응답하면 실제로는 차감된 거래가 생길 수 있다)
+     */
+    private TransactionDto await(CompletableFuture<TransactionDto> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 시작할 때 남은 저널은 recoverJournals 에서 반영했으므로 한 주기를 기다린 뒤부터 반영한다.
+     * 한 번에 snapshotBatchSize 만큼 반영했으면 밀린 것이므로 기다리지 않고 이어서 반영한다.
+     */
+    private void snapshotLoop() {
+        int saved = 0;
+        while (running) {
+            try {
+                if (saved < snapshotBatchSize
+                        && stopping.await(snapshotIntervalMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                saved = 0;
+                for (Shard shard : shards) {
+                    saved += snapshot(shard.journal, false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("failed to snapshot balance engine, will retry", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * 저널의 거래 내역과, 계좌마다 마지막 잔액을 한 트랜잭션으로 반영한다.
+     * 잔액은 더하지 않고 덮어쓰므로 같은 내용을 다시 반영해도 결과가 같다.
+     *
+     * @return 반영한 거래 내역 수
+     */
+    int snapshot(TransactionJournal journal, boolean mayBeSaved) {
+        TransactionJournal.Batch batch = journal.read(snapshotBatchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Long> balances = new LinkedHashMap<>();
+        for (TransactionJournal.Entry entry : batch.getEntries()) {
+            balances.put(entry.getAccountId(), entry.getBalanceSnapShot());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionLedger.saveEntries(batch.getEntries(), mayBeSaved);
+            balances.forEach(accountRepository::updateBalance);
+        });
+        journal.markFlushed(batch);
+
+        balances.keySet().stream()
+                .map(accountOwners::get)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(accountCache::evictUserAccounts);
+        return batch.getEntries().size();
+    }
+
+    private void sleepQuietly() {
+        try {
+            stopping.await(snapshotIntervalMillis * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private enum CommandType {
+        USE,
+        CANCEL,
+        TRANSFER_OUT,
+        TRANSFER_IN,
+        TRANSFER_REFUND,
+        UNREGISTER,
+        REOPEN
+    }
+
+    private static final class Command {
+        private final CommandType type;
+        private final Long userId;
+        private final String accountNumber;
+        private final long amount;
+        private final String transactionId;
+        private final String originalTransactionId;
+        private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+
+        private Command(CommandType type, Long userId, String accountNumber, long amount,
+                        String transactionId, String originalTransactionId) {
+            this.type = type;
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+            this.amount = amount;
+            this.transactionId = transactionId;
+            this.originalTransactionId = originalTransactionId;
+        }
+
+        private static Command use(Long userId, String accountNumber, long amount, String transactionId) {
+            return new Command(CommandType.USE, userId, accountNumber, amount, transactionId, null);
+        }
+
+        private static Command cancel(String originalTransactionId, String cancelTransactionId,
+                                      String accountNumber, long amount) {
+            return new Command(CommandType.CANCEL, null, accountNumber, amount,
+                    cancelTransactionId, originalTransactionId);
+        }
+
+        private static Command transferOut(Long userId, String accountNumber, long amount, String transactionId) {
+            return new Command(CommandType.TRANSFER_OUT, userId, accountNumber, amount, transactionId, null);
+        }
+
+        private static Command transferIn(String accountNumber, long amount, String transactionId) {
+            return new Command(CommandType.TRANSFER_IN, null, accountNumber, amount, transactionId, null);
+        }
+
+        private static Command refund(String accountNumber, long amount, String transactionId) {
+            return new Command(CommandType.TRANSFER_REFUND, null, accountNumber, amount, transactionId, null);
+        }
+
+        private static Command unregister(String accountNumber) {
+            return new Command(CommandType.UNREGISTER, null, accountNumber, 0L, null, null);
+        }
+
+        private static Command reopen(String accountNumber) {
+            return new Command(CommandType.REOPEN, null, accountNumber, 0L, null, null);
+        }
+    }
+
+    /**
+     * 샤드 스레드만 읽고 쓰는 계좌 상태
+     */
+    private static final class AccountState {
+        private final long id;
+        private final Long userId;
+        private boolean inUse;
+        private long balance;
+
+        private AccountState(Account account) {
+            this.id = account.getId();
+            this.userId = account.getAccountUser().getId();
+            this.inUse = account.getAccountStatus() == AccountStatus.IN_USE;
+            this.balance = account.getBalance();
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final BlockingQueue<Command> ring;
+        private final TransactionJournal journal;
+        private final Thread thread;
+        private final Map<String, AccountState> accounts = new HashMap<>();
+        private final Map<String, Boolean> recentCancels = new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > RECENT_CANCELS;
+            }
+        };
+        private final List<Command> drained = new ArrayList<>(MAX_DRAIN);
+        private final List<Command> applied = new ArrayList<>(MAX_DRAIN);
+        private final List<TransactionDto> appliedResults = new ArrayList<>(MAX_DRAIN);
+
+        private Shard(int index, TransactionJournal journal) {
+            this.ring = new ArrayBlockingQueue<>(ringSize);
+            this.journal = journal;
+            this.thread = new Thread(this, "balance-engine-shard-" + index);
+            this.thread.setDaemon(true);
+
+            String shard = String.valueOf(index);
+            Gauge.builder("account.engine.ring", ring, BlockingQueue::size)
+                    .description("commands waiting in the shard ring")
+                    .tag("shard", shard)
+                    .register(meterRegistry);
+            Gauge.builder("account.engine.journal.pending", journal, TransactionJournal::pendingCount)
+                    .description("journaled balance changes not yet snapshotted to the database")
+                    .tag("shard", shard)
+                    .register(meterRegistry);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        /**
+         * 종료할 때도 큐에 이미 들어온 명령은 모두 처리하고 끝낸다.
+         */
+        @Override
+        public void run() {
+            while (running || !ring.isEmpty()) {
+                try {
+                    Command first = ring.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    drained.add(first);
+                    ring.drainTo(drained, MAX_DRAIN - 1);
+                    process();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("balance engine shard failed to process commands", e);
+                } finally {
+                    // 응답하지 못한 명령이 남지 않게 한다. (기다리는 쪽은 시간 제한이 없다)
+                    // 메모리와 저널에 반영된 명령은 그 뒤에 실패했더라도(fsync 등) 성공으로 응답한다.
+                    for (int i = 0; i < applied.size(); i++) {
+                        applied.get(i).result.complete(appliedResults.get(i));
+                    }
+                    for (Command command : drained) {
+                        command.result.completeExceptionally(
+                                new IllegalStateException("balance engine shard failed"));
+                    }
+                    drained.clear();
+                    applied.clear();
+                    appliedResults.clear();
+                }
+            }
+        }
+
+        private void process() {
+            for (Command command : drained) {
+                try {
+                    TransactionDto result = execute(command);
+                    applied.add(command);
+                    appliedResults.add(result);
+                } catch (RuntimeException e) {
+                    command.result.completeExceptionally(e);
+                }
+            }
+            if (fsync && !applied.isEmpty()) {
+                journal.force();
+            }
+            for (int i = 0; i < applied.size(); i++) {
+                applied.get(i).result.complete(appliedResults.get(i));
+            }
+        }
+
+        private TransactionDto execute(Command command) {
+            switch (command.type) {
+                case USE:
+                    return use(command);
+                case CANCEL:
+                    return cancel(command);
+                case TRANSFER_OUT:
+                    return transferOut(command);
+                case TRANSFER_IN:
+                    return transferIn(command, true);
+                case TRANSFER_REFUND:
+                    return transferIn(command, false);
+                case UNREGISTER:
+                    return unregister(command);
+                default:
+                    // 해지 트랜잭션이 롤백된 경우
+                    AccountState account = accounts.get(command.accountNumber);
+                    if (account != null) {
+                        account.inUse = true;
+                    }
+                    return null;
+            }
+        }
+
+        private TransactionDto unregister(Command command) {
+            AccountState account = load(null, command.accountNumber);
+            if (!account.inUse) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (account.balance > 0) {
+                throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
+            }
+            account.inUse = false;
+            return null;
+        }
+
+        private TransactionDto use(Command command) {
+            AccountState account = load(command.userId, command.accountNumber);
+            validateUseBalance(command.userId, account, command.amount);
+            return apply(command, account, USE, -command.amount);
+        }
+
+        private TransactionDto cancel(Command command) {
+            AccountState account = load(null, command.accountNumber);
+            if (!account.inUse) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (recentCancels.containsKey(command.originalTransactionId)) {
+                throw new AccountException(ErrorCode.TRANSACTION_ALREADY_CANCELED);
+            }
+            TransactionDto result = apply(command, account, CANCEL, command.amount);
+            recentCancels.put(command.originalTransactionId, Boolean.TRUE);
+            return result;
+        }
+
+        private TransactionDto transferOut(Command command) {
+            AccountState account = load(command.userId, command.accountNumber);
+            validateUseBalance(command.userId, account, command.amount);
+            return apply(command, account, TransactionType.TRANSFER_OUT, -command.amount);
+        }
+
+        /**
+         * @param inUseOnly 되돌리기는 그 사이 해지된 계좌에도 넣는다. (출금한 돈이 사라지지 않게)
+         */
+        private TransactionDto transferIn(Command command, boolean inUseOnly) {
+            AccountState account = load(null, command.accountNumber);
+            if (inUseOnly && !account.inUse) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            return apply(command, account, TransactionType.TRANSFER_IN, command.amount);
+        }
+
+        private TransactionDto apply(Command command, AccountState account,
+                                     TransactionType transactionType, long delta) {
+            LocalDateTime transactedAt = LocalDateTime.now();
+            account.balance += delta;
+            if (!journal.append(new TransactionJournal.Entry(account.id, transactionType, S, command.amount,
+                    account.balance, transactedAt.toInstant(ZoneOffset.UTC).toEpochMilli(),
+                    command.transactionId))) {
+                // 스냅샷이 DB 장애 등으로 밀려서 저널이 가득 찬 경우
+                account.balance -= delta;
+                throw new AccountException(ErrorCode.TOO_MANY_REQUESTS);
+            }
+
+            return TransactionDto.builder()
+                    .accountNumber(command.accountNumber)
+                    .transactionType(transactionType)
+                    .transactionResultType(S)
+                    .amount(command.amount)
+                    .balanceSnapShot(account.balance)
+                    .transactionId(command.transactionId)
+                    .transactedAt(transactedAt)
+                    .build();
+        }
+
+        /**
+         * @param userId 없으면(취소) 계좌가 없을 때 사용자 확인 없이 ACCOUNT_NOT_FOUND
+         */
+        private AccountState load(Long userId, String accountNumber) {
+            AccountState cached = accounts.get(accountNumber);
+            if (cached != null) {
+                return cached;
+            }
+
+            Account account = accountRepository.findByAccountNumber(accountNumber).orElse(null);
+            if (account == null) {
+                // TransactionService 와 같은 순서로 사용자가 없는 경우를 먼저 알린다.
+                throw new AccountException(userId == null || accountUserRepository.existsById(userId)
+                        ? ErrorCode.ACCOUNT_NOT_FOUND : ErrorCode.USER_NOT_FOUND);
+            }
+            AccountState loaded = new AccountState(account);
+            accounts.put(accountNumber, loaded);
+            accountOwners.put(loaded.id, loaded.userId);
+            return loaded;
+        }
+
+        private void validateUseBalance(Long userId, AccountState account, long amount) {
+            if (!Objects.equals(userId, account.userId)) {
+                throw new AccountException(accountUserRepository.existsById(userId)
+                        ? ErrorCode.USER_ACCOUNT_UN_MATCH : ErrorCode.USER_NOT_FOUND);
+            }
+            if (!account.inUse) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (account.balance < amount) {
+                throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+        }
+    }
+}
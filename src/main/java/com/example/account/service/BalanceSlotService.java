@@ -0,0 +1,229 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.dto.AccountSummary;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBalanceSlotRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.SlotSelection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 잔액을 여러 칸에 나눠 담은 계좌 (잔액 사용이 몰리는 가맹점 계좌 등)
+ * 잔액 사용이 계좌 행 하나에 줄 서지 않도록, 계좌 락 없이 칸 하나를 골라 조건부 UPDATE 로 차감한다.
+ * 1. 고른 칸(RANDOM / THREAD)의 잔액이 모자라면 다른 칸에서 차례로 차감한다.
+ * 2. 어느 칸으로도 모자라면 계좌 락을 잡고 칸 잔액을 다시 나눈 뒤(rebalance) 한 번 더 시도한다.
+ * 0번 칸은 account.balance 자체라서 취소 / 이체 입금은 0번 칸에 더해지고 rebalance 때 나눠진다.
+ * 일괄 사용 / 이체 출금은 0번 칸 잔액만큼만 쓸 수 있다.
+ * 꺼져 있거나 BalanceEngine 을 켠 경우에는 칸을 읽지 않으므로 계좌를 나눌 수 없다.
+ * 지표 : account.balance_slot.rebalance
+ */
+@Service
+public class BalanceSlotService {
+    private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository accountBalanceSlotRepository;
+    private final AccountCache accountCache;
+    private final LockService lockService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean engineEnabled;
+    private final SlotSelection selection;
+    private final Counter rebalanceCounter;
+
+    public BalanceSlotService(AccountRepository accountRepository,
+                              AccountBalanceSlotRepository accountBalanceSlotRepository,
+                              AccountCache accountCache,
+                              LockService lockService,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${account.balance-slot.enabled:false}") boolean enabled,
+                              @Value("${account.engine.enabled:false}") boolean engineEnabled,
+                              @Value("${account.balance-slot.selection:RANDOM}") SlotSelection selection) {
+        this.accountRepository = accountRepository;
+        this.accountBalanceSlotRepository = accountBalanceSlotRepository;
+        this.accountCache = accountCache;
+        this.lockService = lockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.engineEnabled = engineEnabled;
+        this.selection = selection;
+        this.rebalanceCounter = Counter.builder("account.balance_slot.rebalance")
+                .description("balance slot rebalances after no single slot could cover a use")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 꺼져 있으면 조회 없이 false
+     */
+    public boolean isSplit(String accountNumber) {
+        return enabled && findAccount(accountNumber)
+                .map(account -> account.getBalanceSlots() > 1)
+                .orElse(false);
+    }
+
+    /**
+     * 캐시에서 찾고, 없으면 DB 에서 읽어 캐시에 넣는다.
+     */
+    public Optional<AccountSummary> findAccount(String accountNumber) {
+        Optional<AccountSummary> cached = accountCache.getAccount(accountNumber);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        Optional<AccountSummary> account = accountRepository.findByAccountNumber(accountNumber)
+                .map(AccountSummary::fromEntity);
+        account.ifPresent(accountCache::putAccount);
+        return account;
+    }
+
+    public int selectSlot(int slots) {
+        if (selection == SlotSelection.THREAD) {
+            return (int) (Thread.currentThread().getId() % slots);
+        }
+        return ThreadLocalRandom.current().nextInt(slots);
+    }
+
+    /**
+     * first 칸부터 차례로, 잔액이 충분한 칸 하나에서 차감한다. (호출하는 쪽 트랜잭션 안에서)
+     *
+     * @return 어느 칸에서도 차감하지 못했으면 false (아무것도 바꾸지 않았다)
+     */
+    public boolean useBalance(AccountSummary account, int first, Long amount) {
+        int slots = account.getBalanceSlots();
+        for (int i = 0; i < slots; i++) {
+            if (useSlotBalance(account, (first + i) % slots, amount)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long sumBalance(Long accountId) {
+        return accountBalanceSlotRepository.sumBalance(accountId);
+    }
+
+    /**
+     * 칸 수를 늘리고 바로 잔액을 고르게 나눈다. (계좌 락을 잡고 한 트랜잭션에서)
+     * 칸을 읽지 않는 설정에서 나누면 칸으로 옮긴 잔액은 쓸 수 없게 되고,
+     * BalanceEngine 은 스냅샷으로 0번 칸을 덮어써서 칸에 옮긴 잔액이 한 번 더 생긴다.
+     */
+    public AccountSummary split(AccountSummary account, int balanceSlots) {
+        if (!enabled || engineEnabled) {
+            throw new AccountException(ErrorCode.BALANCE_SLOT_UNAVAILABLE);
+        }
+
+        AccountSummary splitAccount = account.toBuilder().balanceSlots(balanceSlots).build();
+        lockService.lock(account.getAccountNumber());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                accountRepository.increaseBalanceSlots(account.getId(), balanceSlots);
+                doRebalance(splitAccount, 0, 0L);
+            });
+        } finally {
+            lockService.unlock(account.getAccountNumber());
+        }
+        accountCache.evictAccount(account.getUserId(), account.getAccountNumber());
+        return splitAccount;
+    }
+
+    /**
+     * 칸 잔액을 다시 나눈다. 계좌 락을 잡고 새 트랜잭션에서 실행한다.
+     * amount 가 고르게 나눈 몫 이하이면 모든 칸을 같게, 크면 first 칸으로 모두 모은다.
+     * 조건부 UPDATE 로 빼낸 만큼만 다른 칸에 더하므로 그 사이 차감된 칸이 있어도 합계는 맞는다.
+     */
+    public void rebalance(AccountSummary account, int first, Long amount) {
+        lockService.lock(account.getAccountNumber());
+        try {
+            transactionTemplate.executeWithoutResult(status -> doRebalance(account, first, amount));
+            rebalanceCounter.increment();
+        } finally {
+            lockService.unlock(account.getAccountNumber());
+        }
+    }
+
+    private void doRebalance(AccountSummary account, int first, Long amount) {
+        int slots = account.getBalanceSlots();
+        Account entity = accountRepository.findByAccountNumber(account.getAccountNumber())
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        long[] balances = new long[slots];
+        balances[0] = entity.getBalance();
+        boolean[] exists = new boolean[slots];
+        for (AccountBalanceSlot slot : accountBalanceSlotRepository.findByAccountIdOrderBySlotNo(entity.getId())) {
+            balances[slot.getSlotNo()] = slot.getBalance();
+            exists[slot.getSlotNo()] = true;
+        }
+
+        // 처음 나눌 때(또는 칸 수를 늘렸을 때) 빈 칸을 만든다.
+        List<AccountBalanceSlot> created = new ArrayList<>();
+        for (int slotNo = 1; slotNo < slots; slotNo++) {
+            if (!exists[slotNo]) {
+                created.add(AccountBalanceSlot.builder()
+                        .account(entity)
+                        .slotNo(slotNo)
+                        .balance(0L)
+                        .build());
+            }
+        }
+        accountBalanceSlotRepository.saveAllAndFlush(created);
+
+        long total = Arrays.stream(balances).sum();
+        long[] targets = new long[slots];
+        if (amount <= total / slots) {
+            Arrays.fill(targets, total / slots);
+            targets[first] += total % slots;
+        } else {
+            targets[first] = total;
+        }
+
+        long moving = 0;
+        for (int slotNo = 0; slotNo < slots; slotNo++) {
+            long surplus = balances[slotNo] - targets[slotNo];
+            if (surplus > 0 && useSlotBalance(account, slotNo, surplus)) {
+                moving += surplus;
+            }
+        }
+        for (int slotNo = 0; slotNo < slots && moving > 0; slotNo++) {
+            long shortage = Math.min(targets[slotNo] - balances[slotNo], moving);
+            if (shortage > 0) {
+                addSlotBalance(account, slotNo, shortage);
+                moving -= shortage;
+            }
+        }
+        if (moving > 0) {
+            addSlotBalance(account, first, moving);
+        }
+    }
+
+    private boolean useSlotBalance(AccountSummary account, int slotNo, Long amount) {
+        if (slotNo == 0) {
+            return accountRepository.useBalance(account.getUserId(), account.getAccountNumber(),
+                    amount, AccountStatus.IN_USE) > 0;
+        }
+        return accountBalanceSlotRepository.useBalance(account.getId(), slotNo, amount) > 0;
+    }
+
+    private void addSlotBalance(AccountSummary account, int slotNo, Long amount) {
+        int updated = slotNo == 0
+                ? accountRepository.cancelBalance(account.getAccountNumber(), amount, AccountStatus.IN_USE)
+                : accountBalanceSlotRepository.addBalance(account.getId(), slotNo, amount);
+        if (updated == 0) {
+            // 빼낸 잔액을 더할 곳이 없으면 트랜잭션을 되돌린다.
+            throw new IllegalStateException("balance slot not found : "
+                    + account.getAccountNumber() + "#" + slotNo);
+        }
+    }
+}
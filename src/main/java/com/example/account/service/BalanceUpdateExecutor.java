@@ -0,0 +1,95 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 잔액 변경 트랜잭션 실행기
+ * LOCK 모드 : 계좌 락(@AccountLock) 안에서 트랜잭션을 한 번 실행한다.
+ * OPTIMISTIC 모드 : 락 없이 실행하고, 버전 충돌이 나면 트랜잭션을 처음부터 다시 실행한다.
+ * 재시도 사이에는 지수적으로 늘어나는 대기(최대 maxBackoffMillis)를 둔다.
+ * ATOMIC 모드 : 락 없이 한 번 실행한다. (조건부 UPDATE 는 TransactionService 에서 처리)
+ */
+@Slf4j
+@Component
+public class BalanceUpdateExecutor {
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrencyMode mode;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Counter retryCounter;
+    private final Counter exhaustedCounter;
+
+    public BalanceUpdateExecutor(PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${account.concurrency.mode:LOCK}") ConcurrencyMode mode,
+                                 @Value("${account.concurrency.optimistic.max-attempts:5}") int maxAttempts,
+                                 @Value("${account.concurrency.optimistic.base-backoff-ms:5}") long baseBackoffMillis,
+                                 @Value("${account.concurrency.optimistic.max-backoff-ms:100}") long maxBackoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mode = mode;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryCounter = Counter.builder("account.balance.optimistic.retry")
+                .description("optimistic lock conflicts that were retried")
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("account.balance.optimistic.exhausted")
+                .description("balance updates that gave up after max attempts")
+                .register(meterRegistry);
+    }
+
+    public ConcurrencyMode getMode() {
+        return mode;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (mode != ConcurrencyMode.OPTIMISTIC) {
+            return transactionTemplate.execute(status -> action.get());
+        }
+        return executeWithRetry(action);
+    }
+
+    /**
+     * 모드와 관계없이 버전 충돌 시 재시도한다.
+     * 엔티티를 읽어서 수정하지만 계좌 락을 다 잡지 못하는 일괄 처리에서 사용
+     */
+    public <T> T executeWithRetry(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhaustedCounter.increment();
+                    log.error("optimistic update failed after {} attempts", attempt);
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                retryCounter.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+}
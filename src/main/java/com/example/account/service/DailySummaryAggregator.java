@@ -0,0 +1,130 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountDailySummary;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountDailySummaryRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 계좌 일별 요약 집계
+ * 거래 내역을 저장하는 트랜잭션 안에서 성공한 거래를 (계좌, 날짜) 별로 합쳐 account_daily_summary 에 더한다.
+ * 거래 내역과 요약이 같이 커밋되거나 같이 롤백되므로 프로세스가 죽어도 요약만 빠지는 일이 없다.
+ * SYNC : 잔액을 바꾼 트랜잭션에서 더한다. (TransactionLedger.save / saveAll, 취소)
+ * WRITE_BEHIND / 잔액 엔진 : 저널을 배치로 저장할 때 더하므로 거래가 몰리는 계좌도 배치마다 한 행만 갱신한다.
+ *                           (TransactionLedger.saveEntries)
+ * 행은 조건부 UPDATE 한 번으로 더하므로 같은 날을 동시에 더하는 트랜잭션은 버전 충돌 없이 차례로 반영된다.
+ */
+@Component
+public class DailySummaryAggregator {
+    private final AccountDailySummaryRepository accountDailySummaryRepository;
+    private final AccountRepository accountRepository;
+
+    public DailySummaryAggregator(AccountDailySummaryRepository accountDailySummaryRepository,
+                                  AccountRepository accountRepository) {
+        this.accountDailySummaryRepository = accountDailySummaryRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * 현재 트랜잭션에서 저장하는 거래 내역을 더한다.
+     */
+    public void add(List<Transaction> transactions) {
+        Map<Key, Delta> deltas = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getTransactionResultType() == S) {
+                merge(deltas, transaction.getAccount().getId(), transaction.getTransactionType(),
+                        transaction.getAmount(), transaction.getBalanceSnapShot(), transaction.getTransactedAt());
+            }
+        }
+        save(deltas);
+    }
+
+    /**
+     * 현재 트랜잭션에서 저장하는 저널의 거래 내역을 더한다.
+     */
+    public void addEntries(List<TransactionJournal.Entry> entries) {
+        Map<Key, Delta> deltas = new HashMap<>();
+        for (TransactionJournal.Entry entry : entries) {
+            if (entry.getTransactionResultType() == S) {
+                merge(deltas, entry.getAccountId(), entry.getTransactionType(), entry.getAmount(),
+                        entry.getBalanceSnapShot(), LocalDateTime.ofInstant(
+                                Instant.ofEpochMilli(entry.getTransactedAtEpochMilli()), ZoneOffset.UTC));
+            }
+        }
+        save(deltas);
+    }
+
+    private void merge(Map<Key, Delta> deltas, Long accountId, TransactionType transactionType, long amount,
+                       long balanceSnapShot, LocalDateTime transactedAt) {
+        Delta delta = new Delta(
+                transactionType == USE || transactionType == TRANSFER_OUT ? amount : 0,
+                transactionType == CANCEL || transactionType == TRANSFER_IN ? amount : 0,
+                1, balanceSnapShot, transactedAt);
+        deltas.merge(new Key(accountId, transactedAt.toLocalDate()), delta, Delta::plus);
+    }
+
+    private void save(Map<Key, Delta> deltas) {
+        List<AccountDailySummary> created = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            int updated = accountDailySummaryRepository.add(key.getAccountId(), key.getDate(),
+                    delta.getDebitAmount(), delta.getCreditAmount(), delta.getTransactionCount(),
+                    delta.getClosingBalance(), delta.getClosingAt());
+            if (updated == 0) {
+                created.add(AccountDailySummary.builder()
+                        .account(accountRepository.getById(key.getAccountId()))
+                        .summaryDate(key.getDate())
+                        .debitAmount(delta.getDebitAmount())
+                        .creditAmount(delta.getCreditAmount())
+                        .transactionCount(delta.getTransactionCount())
+                        .closingBalance(delta.getClosingBalance())
+                        .closingAt(delta.getClosingAt())
+                        .build());
+            }
+        });
+        accountDailySummaryRepository.saveAll(created);
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final Long accountId;
+        private final LocalDate date;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Delta {
+        private final long debitAmount;
+        private final long creditAmount;
+        private final long transactionCount;
+        private final long closingBalance;
+        private final LocalDateTime closingAt;
+
+        Delta plus(Delta other) {
+            Delta last = other.closingAt.isBefore(closingAt) ? this : other;
+            return new Delta(debitAmount + other.debitAmount, creditAmount + other.creditAmount,
+                    transactionCount + other.transactionCount, last.closingBalance, last.closingAt);
+        }
+    }
+}
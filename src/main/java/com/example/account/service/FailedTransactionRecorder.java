@@ -0,0 +1,207 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.OverflowPolicy;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.F;
+
+/**
+ * 실패한 잔액 사용/취소 거래 기록
+ * 요청 스레드는 메모리 큐에 넣기만 하고, 백그라운드 스레드가 모아서 transaction 테이블에 배치로 저장한다.
+ * 큐가 가득 차면 DROP : 버리고 센다, BLOCK : block-timeout-ms 까지 기다렸다가 그래도 차 있으면 버리고 센다.
+ * 기록은 최선 노력(best effort)이라 프로세스가 죽으면 큐에 남은 실패 기록은 사라지고,
+ * 없는 계좌에 대한 실패는 계좌를 참조할 수 없으므로 남기지 않는다.
+ * 잔액 스냅샷은 요청 시점이 아니라 저장 시점의 잔액이다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionIdGenerator transactionIdGenerator;
+
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private final BlockingQueue<FailedTransaction> queue;
+    private final Counter overflowCounter;
+    private final Counter errorCounter;
+    private Thread writer;
+    private volatile boolean running;
+
+    public FailedTransactionRecorder(TransactionRepository transactionRepository,
+                                     AccountRepository accountRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     TransactionIdGenerator transactionIdGenerator,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${account.failed-transaction.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${account.failed-transaction.overflow:DROP}") OverflowPolicy overflowPolicy,
+                                     @Value("${account.failed-transaction.block-timeout-ms:100}") long blockTimeoutMillis,
+                                     @Value("${account.failed-transaction.batch-size:500}") int batchSize,
+                                     @Value("${account.failed-transaction.flush-interval-ms:50}") long flushIntervalMillis) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("account.failed_transaction.queue", queue, BlockingQueue::size)
+                .description("failed transactions waiting to be saved")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("account.failed_transaction.dropped")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("account.failed_transaction.dropped")
+                .tag("reason", "error")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "failed-transaction-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        writer.join();
+        while (flush() > 0) {
+            // 종료 전에 큐에 남은 실패 기록을 모두 저장한다.
+        }
+    }
+
+    /**
+     * @return 큐에 넣었으면 true, 큐가 가득 차서 버렸으면 false
+     */
+    public boolean record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransaction failedTransaction = new FailedTransaction(
+                transactionType, accountNumber, amount, LocalDateTime.now());
+        boolean queued = overflowPolicy == OverflowPolicy.BLOCK
+                ? offerWithTimeout(failedTransaction)
+                : queue.offer(failedTransaction);
+        if (!queued) {
+            overflowCounter.increment();
+        }
+        return queued;
+    }
+
+    private boolean offerWithTimeout(FailedTransaction failedTransaction) {
+        try {
+            return queue.offer(failedTransaction, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                FailedTransaction first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<FailedTransaction> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    save(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 큐에서 꺼낸 실패 기록 수
+     */
+    int flush() {
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        if (!batch.isEmpty()) {
+            save(batch);
+        }
+        return batch.size();
+    }
+
+    private void save(List<FailedTransaction> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<String, Account> accounts = accountRepository.findByAccountNumberIn(batch.stream()
+                                .map(FailedTransaction::getAccountNumber)
+                                .collect(Collectors.toSet()))
+                        .stream()
+                        .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+                transactionRepository.saveAll(batch.stream()
+                        .filter(failedTransaction -> accounts.containsKey(failedTransaction.getAccountNumber()))
+                        .map(failedTransaction -> toTransaction(
+                                failedTransaction, accounts.get(failedTransaction.getAccountNumber())))
+                        .collect(Collectors.toList()));
+            });
+        } catch (Exception e) {
+            // 실패 기록 때문에 재시도하며 DB 에 부하를 더 주지 않는다.
+            log.error("failed to save {} failed transactions, dropping them", batch.size(), e);
+            errorCounter.increment(batch.size());
+        }
+    }
+
+    private Transaction toTransaction(FailedTransaction failedTransaction, Account account) {
+        return Transaction.builder()
+                .transactionType(failedTransaction.getTransactionType())
+                .transactionResultType(F)
+                .account(account)
+                .amount(failedTransaction.getAmount())
+                .balanceSnapShot(account.getBalance())
+                .transactionId(transactionIdGenerator.nextId())
+                .transactedAt(failedTransaction.getTransactedAt())
+                .build();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class FailedTransaction {
+        private final TransactionType transactionType;
+        private final String accountNumber;
+        private final Long amount;
+        private final LocalDateTime transactedAt;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key 처리
+ * 1. 처음 온 키는 키 단위 락을 잡고, 처리 중 표시(TTL 없음)를 남긴 뒤 실행한다.
+ *    성공한 응답은 TTL 과 함께 처리 중 표시 자리에 저장한다.
+ * 2. 같은 키로 다시 오면 계좌/거래 내역을 건드리지 않고 저장된 응답을 그대로 돌려준다.
+ * 3. 첫 요청이 처리 중일 때 온 중복 요청은 락에서 기다렸다가 저장된 응답을 받는다.
+ *    락 lease 가 먼저 끝나도 처리 중 표시가 남아 있으므로 다시 실행하지 않고 거절한다.
+ * 실패한 요청(예외)은 잔액이 바뀌지 않았으므로 처리 중 표시를 지우고, 같은 키로 다시 시도할 수 있다.
+ * 응답 저장에 실패하면 처리 중 표시가 그대로 남아서, 같은 키의 재시도는 실행하지 않고 거절한다.
+ * (처리 도중 프로세스가 죽어도 마찬가지라서, 그 키는 운영자가 지우기 전까지 거절된다)
+ * 같은 키를 다른 요청 내용으로 다시 쓰면 거절한다.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final String RESPONSE_MAP = "IDEMPOTENCY";
+    private static final String LOCK_PREFIX = "IDLK:";
+
+    private final RedissonClient redissonClient;
+    private final RMapCache<String, String> responses;
+    private final ObjectMapper objectMapper;
+    private final long ttlSeconds;
+    private final long waitTimeMillis;
+    private final long leaseTimeMillis;
+
+    public IdempotencyService(RedissonClient redissonClient,
+                              ObjectMapper objectMapper,
+                              @Value("${account.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${account.idempotency.wait-time-ms:5000}") long waitTimeMillis,
+                              @Value("${account.idempotency.lease-time-ms:30000}") long leaseTimeMillis) {
+        this.redissonClient = redissonClient;
+        this.responses = redissonClient.getMapCache(RESPONSE_MAP, StringCodec.INSTANCE);
+        this.objectMapper = objectMapper;
+        this.ttlSeconds = ttlSeconds;
+        this.waitTimeMillis = waitTimeMillis;
+        this.leaseTimeMillis = leaseTimeMillis;
+    }
+
+    /**
+     * @param scope          API 구분 (같은 키라도 API 가 다르면 다른 요청)
+     * @param idempotencyKey 없으면 그냥 실행한다.
+     */
+    public <T> T execute(String scope, String idempotencyKey, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        String key = scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        // 처리 중이면 락에서 기다린다.
+        StoredResponse stored = findStoredResponse(key, fingerprint);
+        if (stored != null && stored.getBody() != null) {
+            return read(stored.getBody(), responseType);
+        }
+
+        RLock lock = redissonClient.getLock(LOCK_PREFIX + key);
+        acquire(lock, key);
+        try {
+            stored = findStoredResponse(key, fingerprint);
+            if (stored != null) {
+                if (stored.getBody() == null) {
+                    log.error("======Idempotency key is still in progress : {}=====", key);
+                    throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+                }
+                return read(stored.getBody(), responseType);
+            }
+
+            markInProgress(key, fingerprint);
+            T response;
+            try {
+                response = action.get();
+            } catch (RuntimeException | Error e) {
+                clearInProgress(key, e);
+                throw e;
+            }
+            storeResponse(key, fingerprint, response);
+            return response;
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void acquire(RLock lock, String key) {
+        try {
+            if (!lock.tryLock(waitTimeMillis, leaseTimeMillis, TimeUnit.MILLISECONDS)) {
+                log.error("======Idempotency key is still in progress : {}=====", key);
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+    }
+
+    private void markInProgress(String key, String fingerprint) {
+        // 락 lease 가 끝난 사이에 다른 요청이 표시를 남겼으면 실행하지 않는다.
+        if (!responses.fastPutIfAbsent(key, write(new StoredResponse(fingerprint, null)))) {
+            log.error("======Idempotency key is still in progress : {}=====", key);
+            throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+    }
+
+    private void clearInProgress(String key, Throwable cause) {
+        try {
+            responses.fastRemove(key);
+        } catch (RedisException e) {
+            log.error("idempotency in-progress mark not cleared : {}", key, e);
+            cause.addSuppressed(e);
+        }
+    }
+
+    private <T> void storeResponse(String key, String fingerprint, T response) {
+        try {
+            responses.fastPut(key, write(new StoredResponse(fingerprint, write(response))),
+                    ttlSeconds, TimeUnit.SECONDS);
+        } catch (RedisException e) {
+            // 이미 반영된 요청이다. 처리 중 표시가 남아 있으므로 재시도는 거절된다.
+            log.error("idempotency response not stored, key stays in progress : {}", key, e);
+        }
+    }
+
+    private StoredResponse findStoredResponse(String key, String fingerprint) {
+        String json = responses.get(key);
+        if (json == null) {
+            return null;
+        }
+
+        StoredResponse stored = read(json, StoredResponse.class);
+        if (!stored.getFingerprint().equals(fingerprint)) {
+            throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        return stored;
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(write(request).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * body 가 null 이면 처리 중
+     */
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class StoredResponse {
+        private String fingerprint;
+        private String body;
+    }
+}
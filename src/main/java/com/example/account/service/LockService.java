@@ -0,0 +1,255 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 계좌 번호 단위 락
+ * 1. 같은 서버 안의 스레드끼리는 계좌 번호로 나눈 로컬 ReentrantLock 에서 먼저 줄을 선다.
+ * 2. 로컬 락을 잡은 스레드만 Redisson RLock 으로 다른 서버와 경쟁한다.
+ * 서로 다른 계좌는 서로 다른 락을 쓰므로 병렬로 처리된다.
+ * 지표 : account.lock.wait (outcome 태그), account.lock.held, account.lock.failure (stage 태그 local/redis)
+ */
+@Slf4j
+@Service
+public class LockService {
+    private static final String LOCK_PREFIX = "ACLK:";
+
+    private final RedissonClient redissonClient;
+    private final long waitTimeMillis;
+    private final long leaseTimeMillis;
+    private final ReentrantLock[] stripes;
+
+    // 계좌 번호 -> 락을 잡은 시각 (한 계좌의 락은 한 스레드만 잡고 있다)
+    private final Map<String, Long> heldSince = new ConcurrentHashMap<>();
+    private final Timer acquiredTimer;
+    private final Timer failedTimer;
+    private final Timer heldTimer;
+    private final Counter localFailureCounter;
+    private final Counter redisFailureCounter;
+
+    public LockService(RedissonClient redissonClient,
+                       MeterRegistry meterRegistry,
+                       @Value("${account.lock.wait-time-ms:1000}") long waitTimeMillis,
+                       @Value("${account.lock.lease-time-ms:5000}") long leaseTimeMillis,
+                       @Value("${account.lock.stripes:1024}") int stripeCount) {
+        this.redissonClient = redissonClient;
+        this.waitTimeMillis = waitTimeMillis;
+        this.leaseTimeMillis = leaseTimeMillis;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        this.acquiredTimer = waitTimer(meterRegistry, "ACQUIRED");
+        this.failedTimer = waitTimer(meterRegistry, ErrorCode.ACCOUNT_TRANSACTION_LOCK.name());
+        this.heldTimer = Timer.builder("account.lock.held")
+                .description("time between lock and unlock")
+                .register(meterRegistry);
+        this.localFailureCounter = failureCounter(meterRegistry, "local");
+        this.redisFailureCounter = failureCounter(meterRegistry, "redis");
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("account.lock.wait")
+                .description("time spent acquiring an account lock")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("account.lock.failure")
+                .description("account lock acquisitions that timed out")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    public void lock(String accountNumber) {
+        long start = System.nanoTime();
+        try {
+            acquire(accountNumber);
+        } catch (AccountException e) {
+            failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+
+        long acquiredAt = System.nanoTime();
+        acquiredTimer.record(acquiredAt - start, TimeUnit.NANOSECONDS);
+        heldSince.put(accountNumber, acquiredAt);
+    }
+
+    private void acquire(String accountNumber) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeMillis);
+        ReentrantLock localLock = localLock(accountNumber);
+        lockLocal(localLock, deadline, accountNumber);
+
+        boolean locked = false;
+        try {
+            lockRemote(accountNumber, deadline);
+            locked = true;
+        } finally {
+            if (!locked) {
+                localLock.unlock();
+            }
+        }
+    }
+
+    private void lockLocal(ReentrantLock localLock, long deadline, String accountNumbers) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            if (!localLock.tryLock(remaining, TimeUnit.NANOSECONDS)) {
+                log.error("======Local lock acquisition failed : {}=====", accountNumbers);
+                localFailureCounter.increment();
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private void lockRemote(String accountNumber, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            if (!getLock(accountNumber).tryLock(
+                    TimeUnit.NANOSECONDS.toMillis(remaining), leaseTimeMillis, TimeUnit.MILLISECONDS)) {
+                log.error("======Lock acquisition failed : {}=====", accountNumber);
+                redisFailureCounter.increment();
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    /**
+     * 여러 계좌의 락을 모두 잡는다. 하나라도 못 잡으면 잡은 락을 풀고 실패한다.
+     * 1. 계좌들이 쓰는 로컬 락 칸을 칸 번호 순서로 (겹치는 칸은 한 번만) 잡는다.
+     * 2. Redis 락을 계좌 번호 순서로 잡는다.
+     * 계좌 번호 순서와 칸 번호 순서는 다를 수 있으므로 단계마다 따로 정렬한다.
+     * 모든 호출이 같은 순서로 잡으므로 A->B, B->A 이체가 동시에 와도 서로를 기다리며 멈추지 않는다.
+     *
+     * @return 잡은 순서대로의 계좌 번호 (unlockAll 에 넘긴다)
+     */
+    public List<String> lockAll(Collection<String> accountNumbers) {
+        List<String> ordered = accountNumbers.stream()
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        List<ReentrantLock> localLocks = localLocks(ordered);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(waitTimeMillis);
+        List<ReentrantLock> lockedLocal = new ArrayList<>(localLocks.size());
+        List<String> locked = new ArrayList<>(ordered.size());
+        try {
+            for (ReentrantLock localLock : localLocks) {
+                lockLocal(localLock, deadline, ordered.toString());
+                lockedLocal.add(localLock);
+            }
+            for (String accountNumber : ordered) {
+                lockRemote(accountNumber, deadline);
+                locked.add(accountNumber);
+            }
+        } catch (AccountException e) {
+            failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                unlockRemote(locked.get(i));
+            }
+            unlockLocal(lockedLocal);
+            throw e;
+        }
+
+        long acquiredAt = System.nanoTime();
+        acquiredTimer.record(acquiredAt - start, TimeUnit.NANOSECONDS);
+        for (String accountNumber : ordered) {
+            heldSince.put(accountNumber, acquiredAt);
+        }
+        return locked;
+    }
+
+    /**
+     * lockAll 로 잡은 락을 잡은 반대 순서로 푼다. (Redis 락을 먼저 풀고 로컬 락 칸을 푼다)
+     */
+    public void unlockAll(List<String> accountNumbers) {
+        try {
+            for (int i = accountNumbers.size() - 1; i >= 0; i--) {
+                recordHeld(accountNumbers.get(i));
+                unlockRemote(accountNumbers.get(i));
+            }
+        } finally {
+            unlockLocal(localLocks(accountNumbers));
+        }
+    }
+
+    public void unlock(String accountNumber) {
+        recordHeld(accountNumber);
+        try {
+            unlockRemote(accountNumber);
+        } finally {
+            localLock(accountNumber).unlock();
+        }
+    }
+
+    private void recordHeld(String accountNumber) {
+        Long acquiredAt = heldSince.remove(accountNumber);
+        if (acquiredAt != null) {
+            heldTimer.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void unlockRemote(String accountNumber) {
+        RLock lock = getLock(accountNumber);
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        }
+    }
+
+    private void unlockLocal(List<ReentrantLock> localLocks) {
+        for (int i = localLocks.size() - 1; i >= 0; i--) {
+            localLocks.get(i).unlock();
+        }
+    }
+
+    private RLock getLock(String accountNumber) {
+        return redissonClient.getLock(LOCK_PREFIX + accountNumber);
+    }
+
+    private ReentrantLock localLock(String accountNumber) {
+        return stripes[stripeIndex(accountNumber)];
+    }
+
+    /**
+     * 계좌들이 쓰는 로컬 락 칸 (칸 번호 순서, 중복 없음)
+     */
+    private List<ReentrantLock> localLocks(Collection<String> accountNumbers) {
+        return accountNumbers.stream()
+                .map(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .map(index -> stripes[index])
+                .collect(Collectors.toList());
+    }
+
+    private int stripeIndex(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), stripes.length);
+    }
+}
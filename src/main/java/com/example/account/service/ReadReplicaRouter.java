@@ -0,0 +1,174 @@
+package com.example.account.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 조회를 복제 DB 에서 읽을지 정한다. (account.datasource.replica.enabled, ReplicaDataSourceConfig)
+ * 읽기 전용 트랜잭션은 복제 DB, 나머지는 주 DB 에서 실행된다. (ReplicaRoutingDataSource)
+ * 복제 지연 동안 방금 바꾼 값이 안 보이지 않도록, 계좌/잔액이 바뀐 사용자는 sticky-ms 동안 주 DB 에서 읽는다.
+ * (AccountCache 가 바뀐 사용자의 캐시를 지울 때 같이 표시한다)
+ * 바뀐 사용자 표시는 Redis(RMapCache, TTL sticky-ms)에도 남겨서 다른 노드도 주 DB 에서 읽게 한다.
+ * 조회 결과는 Redis 캐시를 통해 모든 노드에 퍼지므로, 복제 DB 에서 읽은 지연된 잔액이 캐시에 들어가면 안 된다.
+ * - 복제 DB 에서 읽은 뒤 그 사이 바뀐 사용자가 되었으면 주 DB 에서 다시 읽는다.
+ * - Redis 오류로 표시를 확인하지 못하면 주 DB 에서 읽는다.
+ * 복제 지연이 sticky-ms 보다 길면 지연된 값이 캐시에 들어갈 수 있다. (캐시 TTL 동안)
+ * 꺼져 있으면 트랜잭션 없이 그대로 실행한다.
+ * 지표 : account.replica.primary_read
+ */
+@Slf4j
+@Component
+public class ReadReplicaRouter {
+    private static final String RECENT_WRITERS = "REPLICA_RECENT_WRITERS";
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final long stickyMs;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<Long, Boolean> recentWriters;
+    private final RMapCache<String, String> remoteRecentWriters;
+    private final Counter primaryReadCounter;
+
+    public ReadReplicaRouter(RedissonClient redissonClient,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${account.datasource.replica.enabled:false}") boolean enabled,
+                             @Value("${account.datasource.replica.sticky-ms:1000}") long stickyMs) {
+        this.enabled = enabled;
+        this.stickyMs = stickyMs;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(stickyMs))
+                .build();
+        this.remoteRecentWriters = enabled ? redissonClient.getMapCache(RECENT_WRITERS, StringCodec.INSTANCE) : null;
+        this.primaryReadCounter = Counter.builder("account.replica.primary_read")
+                .description("read-only queries sent to the primary for read-your-writes or replica misses")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 라우팅 DataSource 가 커넥션을 고를 때 본다. (읽기 전용 트랜잭션이어도 주 DB 를 쓴다)
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    /**
+     * 사용자의 계좌/잔액이 바뀌었다. 복제 지연은 커밋부터 시작하므로 커밋 후에 한 번 더 표시하고 Redis 에도 남긴다.
+     * 캐시를 지우는 것(AccountCache)보다 먼저 불러야 다른 노드가 캐시를 다시 채울 때 표시를 본다.
+     */
+    public void markWritten(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        recentWriters.put(userId, Boolean.TRUE);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markRecentWriter(userId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markRecentWriter(userId);
+            }
+        });
+    }
+
+    /**
+     * 복제 DB 에서 읽는다. (지연이 있어도 되는 조회)
+     */
+    public <T> T read(Supplier<T> reader) {
+        if (!enabled) {
+            return reader.get();
+        }
+        return readOnlyTransaction.execute(status -> reader.get());
+    }
+
+    /**
+     * userId 가 방금 바꾼 사용자면 주 DB, 아니면 복제 DB 에서 읽는다.
+     */
+    public <T> T readAfterWrite(Long userId, Supplier<T> reader) {
+        if (!enabled) {
+            return reader.get();
+        }
+        if (userId == null) {
+            return readOnlyTransaction.execute(status -> reader.get());
+        }
+        if (isRecentWriter(userId)) {
+            return readPrimary(reader);
+        }
+
+        T result = readOnlyTransaction.execute(status -> reader.get());
+        if (isRecentWriter(userId)) {
+            // 읽는 사이에 (다른 노드에서) 바뀌었다. 복제 DB 값은 바뀌기 전일 수 있다.
+            return readPrimary(reader);
+        }
+        return result;
+    }
+
+    /**
+     * 복제 DB 에 없으면(아직 복제되지 않았을 수 있다) 주 DB 에서 한 번 더 찾는다.
+     */
+    public <T> Optional<T> readOrPrimary(Supplier<Optional<T>> reader) {
+        if (!enabled) {
+            return reader.get();
+        }
+        Optional<T> result = readOnlyTransaction.execute(status -> reader.get());
+        if (result != null && result.isPresent()) {
+            return result;
+        }
+        return readPrimary(reader);
+    }
+
+    private void markRecentWriter(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+        try {
+            remoteRecentWriters.fastPut(userId.toString(), "", stickyMs, TimeUnit.MILLISECONDS);
+        } catch (RedisException e) {
+            log.warn("replica recent writer mark failed : {}", userId, e);
+        }
+    }
+
+    private boolean isRecentWriter(Long userId) {
+        if (recentWriters.getIfPresent(userId) != null) {
+            return true;
+        }
+        try {
+            return remoteRecentWriters.containsKey(userId.toString());
+        } catch (RedisException e) {
+            log.warn("replica recent writer check failed : {}", userId, e);
+            return true;
+        }
+    }
+
+    private <T> T readPrimary(Supplier<T> reader) {
+        primaryReadCounter.increment();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return readOnlyTransaction.execute(status -> reader.get());
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+}
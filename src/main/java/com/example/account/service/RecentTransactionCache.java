@@ -0,0 +1,59 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 최근 거래 캐시 (프로세스 내 Caffeine)
+ * 취소는 대부분 거래 직후 몇 분 안에 들어오므로, 이 인스턴스에서 성공한 거래를 잠시 들고 있다가
+ * 취소 검증(계좌, 금액, 거래 시각)에 DB 대신 쓴다.
+ * 금액/계좌/시각은 바뀌지 않는 값이라 캐시가 틀릴 일이 없고, 취소 여부는
+ * 취소 거래 id 의 unique 인덱스(또는 BalanceEngine 샤드)가 최종적으로 막는다.
+ */
+@Component
+public class RecentTransactionCache {
+    private final boolean enabled;
+    private final Cache<String, TransactionSummary> transactions;
+
+    public RecentTransactionCache(MeterRegistry meterRegistry,
+                                  @Value("${account.cache.enabled:true}") boolean enabled,
+                                  @Value("${account.cache.recent-transaction-max-size:100000}") long maxSize,
+                                  @Value("${account.cache.recent-transaction-ttl-seconds:600}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.transactions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, transactions, "transaction.recent");
+    }
+
+    public Optional<TransactionSummary> get(String transactionId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(transactions.getIfPresent(transactionId));
+    }
+
+    public void put(TransactionSummary transaction) {
+        if (!enabled) {
+            return;
+        }
+        transactions.put(transaction.getTransactionId(), transaction);
+    }
+
+    /**
+     * 취소가 커밋된 뒤에 호출한다.
+     */
+    public void markCanceled(TransactionSummary transaction) {
+        put(transaction.toBuilder().canceled(true).build());
+    }
+}
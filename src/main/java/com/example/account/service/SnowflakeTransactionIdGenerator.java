@@ -0,0 +1,59 @@
+package com.example.account.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간 순서 id : 16자리 hex (64bit = 경과 ms 41bit | 노드 10bit | 순번 12bit)
+ * 고정 길이라 문자열 순서가 곧 생성 순서여서, transactionId 인덱스에는 오른쪽 끝에만 추가된다.
+ * 락 없이 CAS 로 만들고, 같은 ms 에 순번을 다 쓰거나 시계가 뒤로 가면 다음 ms 를 당겨 쓴다.
+ * 노드 id 는 인스턴스마다 달라야 한다.
+ */
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    // 2022-01-01T00:00:00Z
+    private static final long EPOCH_MILLIS = 1_640_995_200_000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // (경과 ms << SEQUENCE_BITS) | 순번 : 순번이 넘치면 그대로 다음 ms 로 올라간다.
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeTransactionIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeTransactionIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        return toHex(nextLong());
+    }
+
+    long nextLong() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long state = lastState.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+        return ((state >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                | (nodeId << SEQUENCE_BITS)
+                | (state & SEQUENCE_MASK);
+    }
+
+    private static String toHex(long value) {
+        char[] chars = new char[16];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.account.service;
+
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 계좌 거래 내역 내보내기 (NDJSON / CSV)
+ * 읽기 트랜잭션 안에서 한 건씩 읽어 바로 쓰므로, 거래 내역이 아무리 길어도 메모리 사용량은 일정하다.
+ * 응답 길이를 미리 모르므로 서블릿 컨테이너가 chunked 로 보낸다.
+ */
+@Service
+public class TransactionExporter {
+    private static final String CSV_HEADER =
+            "transactionId,accountNumber,transactionType,transactionResult,amount,transactedAt";
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExporter(TransactionRepository transactionRepository,
+                               AccountRepository accountRepository,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 계좌가 없으면 아무것도 쓰기 전에 실패한다.
+     *
+     * @return 내보낸 거래 수
+     */
+    public long export(String accountNumber, LocalDateTime from, LocalDateTime to,
+                       ExportFormat format, OutputStream outputStream) throws IOException {
+        Long accountId = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND))
+                .getId();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long count;
+        try {
+            count = transactionTemplate.execute(status -> {
+                try (Stream<QueryTransactionResponse> transactions =
+                             transactionRepository.streamByAccountIdBetween(accountId, from, to)) {
+                    return write(transactions.iterator(), format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // 클라이언트가 연결을 끊은 경우 등
+            throw e.getCause();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long write(Iterator<QueryTransactionResponse> transactions,
+                       ExportFormat format, Writer writer) throws IOException {
+        long count = 0;
+        while (transactions.hasNext()) {
+            QueryTransactionResponse transaction = transactions.next();
+            writer.write(format == ExportFormat.CSV
+                    ? toCsv(transaction)
+                    : objectMapper.writeValueAsString(transaction));
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 값에 쉼표나 따옴표가 들어가지 않으므로(생성된 id, 계좌번호, enum, 숫자, 시각) 이스케이프하지 않는다.
+     */
+    private String toCsv(QueryTransactionResponse transaction) {
+        return transaction.getTransactionId() + ','
+                + transaction.getAccountNumber() + ','
+                + transaction.getTransactionType() + ','
+                + transaction.getTransactionResult() + ','
+                + transaction.getAmount() + ','
+                + transaction.getTransactedAt();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.account.service;
+
+/**
+ * 거래 id 생성기 (account.transaction-id.strategy 로 고른다)
+ * 취소 거래 id 는 원거래 id 에 접미사를 붙이므로 저널 최대 길이(40)보다 충분히 짧아야 한다.
+ */
+public interface TransactionIdGenerator {
+    String nextId();
+}
@@ -0,0 +1,310 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 거래 내역을 DB 에 넣기 전에 먼저 기록하는 append-only 파일 (memory-mapped)
+ *
+ * 파일 구조
+ * - 헤더(16 byte) : DB 반영이 끝난 마지막 순번(long)
+ * - 레코드(96 byte 고정) : magic, 순번, 계좌 id, 거래 종류, 결과, 금액, 잔액, 거래 시각, 거래 id, 계좌 버전, 상태
+ *
+ * 레코드 영역은 링 버퍼로 쓴다. 끝에 닿으면 헤더 바로 뒤부터 DB 에 반영된 레코드 위에 이어서 쓰고,
+ * 반영하지 않은 레코드로 가득 차 있을 때만 기록하지 못한다.
+ * 순번이 계속 증가하므로 덮어쓰지 않고 남아있는 예전 레코드는 복구할 때 무시된다.
+ * 헤더에는 순번 하나만 기록하고, 재시작할 때 다음 순번의 레코드를 찾아서 이어서 반영한다.
+ *
+ * 커밋 전에 기록한 레코드(appendPending)는 커밋 결과가 정해질 때까지 읽지 않는다. (read 가 그 앞에서 멈춘다)
+ * 롤백된 레코드는 읽을 때 건너뛴다. 결과를 기록하기 전에 죽었으면 resolvePending 으로 정한다.
+ */
+public class TransactionJournal implements Closeable {
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 96;
+    static final int MAX_TRANSACTION_ID_LENGTH = 40;
+    private static final int RECORD_MAGIC = 0x54524A31; // "TRJ1"
+    private static final int VERSION_OFFSET = 87;
+    private static final int STATUS_OFFSET = 95;
+    // 예전 레코드의 빈 자리(0)는 커밋된 것으로 읽힌다.
+    private static final byte COMMITTED = 0;
+    private static final byte PENDING = 1;
+    private static final byte ROLLED_BACK = 2;
+
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+    private static final TransactionResultType[] RESULT_TYPES = TransactionResultType.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean fsync;
+    private final int recordLimit;
+    private final int recordCount;
+
+    private int writePosition;
+    private long lastSequence;
+    private int flushedPosition;
+    private long flushedSequence;
+
+    public TransactionJournal(Path path, int capacityBytes, boolean fsync) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        this.fsync = fsync;
+        this.recordCount = (capacityBytes - HEADER_SIZE) / RECORD_SIZE;
+        this.recordLimit = HEADER_SIZE + recordCount * RECORD_SIZE;
+
+        flushedSequence = buffer.getLong(0);
+        recover();
+    }
+
+    /**
+     * 지난 실행에서 DB 에 반영하지 못한 레코드(flushedSequence 다음 순번부터)를 찾아
+     * 그 끝까지 쓰기 위치를 옮긴다. 없으면 마지막으로 반영한 레코드 다음부터 쓴다.
+     */
+    private void recover() {
+        flushedPosition = HEADER_SIZE;
+        for (int position = HEADER_SIZE; position < recordLimit; position += RECORD_SIZE) {
+            if (buffer.getInt(position) != RECORD_MAGIC) {
+                continue;
+            }
+            long sequence = buffer.getLong(position + 4);
+            if (sequence == flushedSequence + 1) {
+                flushedPosition = position;
+                break;
+            }
+            if (sequence == flushedSequence) {
+                flushedPosition = next(position);
+            }
+        }
+
+        writePosition = flushedPosition;
+        lastSequence = flushedSequence;
+        while (lastSequence - flushedSequence < recordCount
+                && buffer.getInt(writePosition) == RECORD_MAGIC
+                && buffer.getLong(writePosition + 4) == lastSequence + 1) {
+            writePosition = next(writePosition);
+            lastSequence++;
+        }
+    }
+
+    private int next(int position) {
+        position += RECORD_SIZE;
+        return position == recordLimit ? HEADER_SIZE : position;
+    }
+
+    /**
+     * @return 반영하지 않은 레코드로 파일이 가득 차서 기록하지 못하면 false
+     */
+    public synchronized boolean append(Entry entry) {
+        return write(entry, COMMITTED) >= 0;
+    }
+
+    /**
+     * 커밋 결과가 정해지지 않은 레코드를 기록한다. 결과는 complete 로 기록한다.
+     *
+     * @return 레코드 위치, 파일이 가득 차서 기록하지 못하면 -1
+     */
+    public synchronized int appendPending(Entry entry) {
+        return write(entry, PENDING);
+    }
+
+    /**
+     * appendPending 으로 기록한 레코드의 커밋 결과
+     */
+    public synchronized void complete(int position, boolean committed) {
+        buffer.put(position + STATUS_OFFSET, committed ? COMMITTED : ROLLED_BACK);
+    }
+
+    /**
+     * 결과를 기록하지 못한 레코드(커밋 도중에 죽은 경우)의 결과를 정한다. 다른 트랜잭션이 기록 중이지 않을 때 부른다.
+     *
+     * @return 결과를 정한 레코드 수
+     */
+    public synchronized int resolvePending(Predicate<Entry> committed) {
+        int resolved = 0;
+        int position = flushedPosition;
+        for (long i = flushedSequence; i < lastSequence; i++) {
+            if (buffer.get(position + STATUS_OFFSET) == PENDING) {
+                complete(position, committed.test(readEntry(position)));
+                resolved++;
+            }
+            position = next(position);
+        }
+        return resolved;
+    }
+
+    private int write(Entry entry, byte status) {
+        if (lastSequence - flushedSequence == recordCount) {
+            return -1;
+        }
+
+        int position = writePosition;
+        long sequence = lastSequence + 1;
+        byte[] transactionId = entry.getTransactionId().getBytes(StandardCharsets.US_ASCII);
+        if (transactionId.length > MAX_TRANSACTION_ID_LENGTH) {
+            throw new IllegalArgumentException("transactionId too long : " + entry.getTransactionId());
+        }
+
+        // 예전 레코드 위에 쓰는 경우, 쓰는 도중에는 예전 magic 이 남아있지 않게 한다.
+        buffer.putInt(position, 0);
+        buffer.putLong(position + 4, sequence);
+        buffer.putLong(position + 12, entry.getAccountId());
+        buffer.put(position + 20, (byte) entry.getTransactionType().ordinal());
+        buffer.put(position + 21, (byte) entry.getTransactionResultType().ordinal());
+        buffer.putLong(position + 22, entry.getAmount());
+        buffer.putLong(position + 30, entry.getBalanceSnapShot());
+        buffer.putLong(position + 38, entry.getTransactedAtEpochMilli());
+        buffer.put(position + 46, (byte) transactionId.length);
+        for (int i = 0; i < transactionId.length; i++) {
+            buffer.put(position + 47 + i, transactionId[i]);
+        }
+        buffer.putLong(position + VERSION_OFFSET, entry.getAccountVersion());
+        buffer.put(position + STATUS_OFFSET, status);
+        // magic 을 마지막에 써서, 쓰다 만 레코드는 복구 대상이 되지 않게 한다.
+        buffer.putInt(position, RECORD_MAGIC);
+        if (fsync) {
+            buffer.force();
+        }
+
+        writePosition = next(position);
+        lastSequence = sequence;
+        return position;
+    }
+
+    /**
+     * 지금까지 기록한 레코드를 디스크에 내려쓴다. (fsync 를 끈 채로 여러 건을 모아서 내려쓸 때)
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * DB 에 아직 반영하지 않은 레코드를 최대 maxEntries 개 읽는다.
+     * 커밋 결과가 정해지지 않은 레코드에서 멈추고, 롤백된 레코드는 건너뛴다. (Batch 범위에는 들어간다)
+     */
+    public Batch read(int maxEntries) {
+        int from;
+        int count = 0;
+        long firstSequence;
+        synchronized (this) {
+            from = flushedPosition;
+            firstSequence = flushedSequence + 1;
+            long available = Math.min(maxEntries, lastSequence - flushedSequence);
+            int position = from;
+            while (count < available && buffer.get(position + STATUS_OFFSET) != PENDING) {
+                count++;
+                position = next(position);
+            }
+        }
+        if (count == 0) {
+            return new Batch(Collections.emptyList(), 0, from, firstSequence - 1);
+        }
+
+        // 반영하지 않은 레코드는 append 가 덮어쓰지 않고, 결과가 정해진 상태는 바뀌지 않으므로 락 없이 읽는다.
+        List<Entry> entries = new ArrayList<>(count);
+        int position = from;
+        for (int i = 0; i < count; i++) {
+            if (buffer.get(position + STATUS_OFFSET) != ROLLED_BACK) {
+                entries.add(readEntry(position));
+            }
+            position = next(position);
+        }
+        return new Batch(entries, count, position, firstSequence + count - 1);
+    }
+
+    private Entry readEntry(int position) {
+        byte[] transactionId = new byte[buffer.get(position + 46)];
+        for (int i = 0; i < transactionId.length; i++) {
+            transactionId[i] = buffer.get(position + 47 + i);
+        }
+        return new Entry(
+                buffer.getLong(position + 12),
+                TRANSACTION_TYPES[buffer.get(position + 20)],
+                RESULT_TYPES[buffer.get(position + 21)],
+                buffer.getLong(position + 22),
+                buffer.getLong(position + 30),
+                buffer.getLong(position + 38),
+                new String(transactionId, StandardCharsets.US_ASCII),
+                buffer.getLong(position + VERSION_OFFSET));
+    }
+
+    /**
+     * batch 까지 DB 에 반영되었음을 기록한다. 반영된 레코드 자리는 다시 쓸 수 있다.
+     */
+    public synchronized void markFlushed(Batch batch) {
+        flushedPosition = batch.getEndPosition();
+        flushedSequence = batch.getLastSequence();
+        buffer.putLong(0, flushedSequence);
+        if (fsync) {
+            buffer.force();
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return (int) (lastSequence - flushedSequence);
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final long accountId;
+        private final TransactionType transactionType;
+        private final TransactionResultType transactionResultType;
+        private final long amount;
+        private final long balanceSnapShot;
+        private final long transactedAtEpochMilli;
+        private final String transactionId;
+        // 이 거래를 커밋하면 계좌가 갖게 되는 버전 (커밋 여부를 알 수 없을 때 비교한다)
+        private final long accountVersion;
+
+        /**
+         * 커밋된 뒤에 기록하는 경우 (BalanceEngine)
+         */
+        public Entry(long accountId, TransactionType transactionType, TransactionResultType transactionResultType,
+                     long amount, long balanceSnapShot, long transactedAtEpochMilli, String transactionId) {
+            this(accountId, transactionType, transactionResultType, amount, balanceSnapShot,
+                    transactedAtEpochMilli, transactionId, 0L);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Batch {
+        private final List<Entry> entries;
+        // 롤백되어 entries 에서 빠진 레코드까지 포함한 수
+        private final int recordCount;
+        private final int endPosition;
+        private final long lastSequence;
+
+        public boolean isEmpty() {
+            return recordCount == 0;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LedgerMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 거래 내역 저장소
+ * SYNC : 잔액을 바꾼 트랜잭션 안에서 바로 transaction 테이블에 저장한다.
+ * WRITE_BEHIND : 잔액을 바꾼 트랜잭션이 커밋되기 직전에 거래 내역을 TransactionJournal 파일에 기록하고,
+ *                커밋 결과(커밋/롤백)를 기록한 뒤에 백그라운드 스레드가 모아서 transaction 테이블에 배치로 저장한다.
+ *                레코드에는 커밋되면 계좌가 갖게 되는 버전(@Version)을 같이 기록한다.
+ *                재시작하면 파일에 남아있는 (아직 DB 에 없는) 거래 내역부터 저장하는데,
+ *                결과를 기록하기 전에 죽은 레코드는 계좌의 현재 버전이 기록한 버전에 못 미치면 (커밋되지 않았으면) 버린다.
+ *                파일이 가득 차 있으면 커밋하기 전에 요청을 실패시킨다. (잔액 변경도 롤백된다)
+ *                칸에 나눠 담은 잔액(AccountBalanceSlot)만 바꾼 거래는 계좌 버전이 오르지 않으므로
+ *                결과를 기록하기 전에 죽으면 커밋된 것으로 본다.
+ */
+@Slf4j
+@Component
+public class TransactionLedger {
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DailySummaryAggregator dailySummaryAggregator;
+
+    private final LedgerMode mode;
+    private final String journalPath;
+    private final int capacityBytes;
+    private final boolean fsync;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private TransactionJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+    // 재시작 전에 기록된 순번 : 이미 DB 에 들어갔을 수도 있으니 중복을 걸러낸다.
+    private long recoveredUntilSequence;
+
+    public TransactionLedger(TransactionRepository transactionRepository,
+                             AccountRepository accountRepository,
+                             PlatformTransactionManager transactionManager,
+                             DailySummaryAggregator dailySummaryAggregator,
+                             @Value("${account.ledger.mode:SYNC}") LedgerMode mode,
+                             @Value("${account.ledger.path:./data/transaction-ledger.journal}") String journalPath,
+                             @Value("${account.ledger.capacity-mb:64}") int capacityMb,
+                             @Value("${account.ledger.fsync:false}") boolean fsync,
+                             @Value("${account.ledger.batch-size:500}") int batchSize,
+                             @Value("${account.ledger.flush-interval-ms:20}") long flushIntervalMillis) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dailySummaryAggregator = dailySummaryAggregator;
+        this.mode = mode;
+        this.journalPath = journalPath;
+        this.capacityBytes = capacityMb * 1024 * 1024;
+        this.fsync = fsync;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (mode != LedgerMode.WRITE_BEHIND) {
+            return;
+        }
+
+        openJournal();
+        running = true;
+        writer = new Thread(this::writeLoop, "transaction-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void openJournal() throws IOException {
+        journal = new TransactionJournal(Paths.get(journalPath), capacityBytes, fsync);
+        recoveredUntilSequence = journal.lastSequence();
+        int resolved = journal.resolvePending(this::isCommitted);
+        if (resolved > 0) {
+            log.info("resolved {} in-doubt transactions in ledger journal by account version", resolved);
+        }
+        if (journal.pendingCount() > 0) {
+            log.info("replaying {} transactions from ledger journal", journal.pendingCount());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        writer.join();
+        while (flush() > 0) {
+            // 종료 전에 남은 거래 내역을 모두 저장한다.
+        }
+        journal.close();
+    }
+
+    public Transaction save(Transaction transaction) {
+        if (mode == LedgerMode.SYNC) {
+            dailySummaryAggregator.add(Collections.singletonList(transaction));
+            return transactionRepository.save(transaction);
+        }
+        appendBeforeCommit(Collections.singletonList(transaction));
+        return transaction;
+    }
+
+    public void saveAll(List<Transaction> transactions) {
+        if (mode == LedgerMode.SYNC) {
+            dailySummaryAggregator.add(transactions);
+            transactionRepository.saveAll(transactions);
+            return;
+        }
+        appendBeforeCommit(transactions);
+    }
+
+    private void appendBeforeCommit(List<Transaction> transactions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 트랜잭션 밖에서 바뀐 잔액은 이미 반영되어 있으므로 바로 저장한다.
+            dailySummaryAggregator.add(transactions);
+            transactionRepository.saveAll(transactions);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private final List<TransactionJournal.Entry> entries = new ArrayList<>();
+            private final List<Integer> positions = new ArrayList<>();
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // 엔티티로 바꾼 잔액의 버전은 flush 할 때 오른다.
+                accountRepository.flush();
+                Map<Long, Long> versions = findVersions(transactions);
+                for (Transaction transaction : transactions) {
+                    TransactionJournal.Entry entry =
+                            toEntry(transaction, versions.get(transaction.getAccount().getId()));
+                    int position = journal.appendPending(entry);
+                    if (position < 0) {
+                        // writer 가 DB 장애 등으로 밀려 있음 : 거래 내역 없이 잔액만 바뀌지 않도록 커밋하지 않는다.
+                        log.warn("ledger journal is full, rejecting transaction {}", transaction.getTransactionId());
+                        throw new AccountException(ErrorCode.TOO_MANY_REQUESTS);
+                    }
+                    entries.add(entry);
+                    positions.add(position);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = 0; i < positions.size(); i++) {
+                    journal.complete(positions.get(i), status == STATUS_COMMITTED
+                            || (status == STATUS_UNKNOWN && isCommitted(entries.get(i))));
+                }
+            }
+        });
+    }
+
+    private Map<Long, Long> findVersions(List<Transaction> transactions) {
+        return accountRepository.findVersionsByIdIn(transactions.stream()
+                        .map(transaction -> transaction.getAccount().getId())
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(AccountRepository.AccountVersion::getId,
+                        AccountRepository.AccountVersion::getVersion));
+    }
+
+    /**
+     * 커밋 결과를 모르는 레코드 : 계좌 버전이 기록한 버전까지 올라가 있으면 커밋된 것
+     */
+    private boolean isCommitted(TransactionJournal.Entry entry) {
+        return accountRepository.findVersionsByIdIn(Collections.singleton(entry.getAccountId())).stream()
+                .anyMatch(account -> account.getVersion() >= entry.getAccountVersion());
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                if (flush() == 0) {
+                    Thread.sleep(flushIntervalMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("failed to flush ledger journal, will retry", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * @return DB 에 저장한 거래 내역 수
+     */
+    int flush() {
+        TransactionJournal.Batch batch = journal.read(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> saveEntries(batch.getEntries(),
+                batch.getLastSequence() - batch.getRecordCount() < recoveredUntilSequence));
+        journal.markFlushed(batch);
+        return batch.getRecordCount();
+    }
+
+    /**
+     * 저널에서 읽은 거래 내역과 일별 요약을 현재 트랜잭션 안에서 저장한다. (BalanceEngine 스냅샷도 같이 쓴다)
+     * mayBeSaved 이면 재시작 전에 이미 저장된 거래 내역일 수 있으니 걸러낸다. (요약도 다시 더하지 않는다)
+     */
+    void saveEntries(List<TransactionJournal.Entry> entries, boolean mayBeSaved) {
+        if (mayBeSaved) {
+            entries = excludeAlreadySaved(entries);
+        }
+        dailySummaryAggregator.addEntries(entries);
+        transactionRepository.saveAll(entries.stream()
+                .map(this::toTransaction)
+                .collect(Collectors.toList()));
+    }
+
+    private List<TransactionJournal.Entry> excludeAlreadySaved(List<TransactionJournal.Entry> entries) {
+        Set<String> saved = new HashSet<>(transactionRepository.findSavedTransactionIds(
+                entries.stream()
+                        .map(TransactionJournal.Entry::getTransactionId)
+                        .collect(Collectors.toList())));
+        return entries.stream()
+                .filter(entry -> !saved.contains(entry.getTransactionId()))
+                .collect(Collectors.toList());
+    }
+
+    private TransactionJournal.Entry toEntry(Transaction transaction, long accountVersion) {
+        return new TransactionJournal.Entry(
+                transaction.getAccount().getId(),
+                transaction.getTransactionType(),
+                transaction.getTransactionResultType(),
+                transaction.getAmount(),
+                transaction.getBalanceSnapShot(),
+                transaction.getTransactedAt().toInstant(ZoneOffset.UTC).toEpochMilli(),
+                transaction.getTransactionId(),
+                accountVersion);
+    }
+
+    private Transaction toTransaction(TransactionJournal.Entry entry) {
+        return Transaction.builder()
+                .transactionType(entry.getTransactionType())
+                .transactionResultType(entry.getTransactionResultType())
+                .account(accountRepository.getById(entry.getAccountId()))
+                .amount(entry.getAmount())
+                .balanceSnapShot(entry.getBalanceSnapShot())
+                .transactionId(entry.getTransactionId())
+                .transactedAt(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(entry.getTransactedAtEpochMilli()), ZoneOffset.UTC))
+                .build();
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(flushIntervalMillis * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,56 +1,320 @@
 package com.example.account.service;
 
 
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.AccountMetric;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountSummary;
+import com.example.account.dto.QueryTransactionPage;
+import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
-import java.util.Objects;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    // 취소 거래 id = 원거래 id + 접미사 : 같은 거래의 두 번째 취소는 transactionId unique 인덱스에 걸린다.
+    private static final String CANCEL_TRANSACTION_SUFFIX = "-C";
+    // 이체 입금 거래 id = 출금 거래 id + 접미사
+    private static final String TRANSFER_IN_SUFFIX = "-I";
+
+    private final TransactionLedger transactionLedger;
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
-    @Transactional
+    private final AccountRepository accountRepository;
+    private final BalanceUpdateExecutor balanceUpdateExecutor;
+    private final LockService lockService;
+    private final AccountCache accountCache;
+    private final BalanceEngine balanceEngine;
+    private final RecentTransactionCache recentTransactionCache;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final DailySummaryAggregator dailySummaryAggregator;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final BalanceSlotService balanceSlotService;
+    private final ReadReplicaRouter readReplicaRouter;
+
+    /**
+     * LOCK 모드에서는 @AccountLock 안에서 한 번, OPTIMISTIC 모드에서는 충돌 시 재시도하며
+     * 매 시도마다 새 트랜잭션으로 실행된다.
+     * BalanceEngine 을 켜면 DB 대신 메모리 잔액 엔진에서 처리한다.
+     * 잔액을 여러 칸에 나눠 담은 계좌는 모드와 관계없이 락 없이 칸 하나에서 차감한다. (BalanceSlotService)
+     */
+    @AccountMetric("use")
+    @AccountLock
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount){
+        TransactionDto transactionDto;
+        if (balanceEngine.isEnabled()) {
+            transactionDto = balanceEngine.useBalance(userId, accountNumber, amount);
+        } else if (balanceSlotService.isSplit(accountNumber)) {
+            transactionDto = useSplitBalance(userId, accountNumber, amount);
+        } else {
+            transactionDto = balanceUpdateExecutor.execute(() -> doUseBalance(userId, accountNumber, amount));
+        }
+        recentTransactionCache.put(TransactionSummary.fromDto(transactionDto));
+        return transactionDto;
+    }
 
-        accountUserRepository.findById(userId)
-                .orElseThrow(()-> new AccountException(ErrorCode.USER_NOT_FOUND));
-        Account account = accountUserRepository.findByAccountNumber(accountNumber)
+    private TransactionDto doUseBalance(Long userId, String accountNumber, Long amount) {
+        if (balanceUpdateExecutor.getMode() == ConcurrencyMode.ATOMIC) {
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+
+        // 캐시에서 소유자가 확인되면 사용자는 있는 것이므로 조회하지 않는다. (잔액은 항상 DB 에서 읽는다)
+        boolean cachedOwner = isCachedOwner(userId, accountNumber);
+        Long verifiedUserId = cachedOwner ? userId : accountUserRepository.findById(userId)
+                .orElseThrow(()-> new AccountException(ErrorCode.USER_NOT_FOUND))
+                .getId();
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(()-> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (!cachedOwner) {
+            accountCache.putAccount(AccountSummary.fromEntity(account));
+        }
+
+        validateUseBalance(verifiedUserId, account, amount);
+
+        account.useBalance(amount);
+
+        return saveUseTransaction(account, amount);
+    }
+
+    /**
+     * 조건부 UPDATE 한 번으로 차감하고, 실패했을 때만 계좌를 읽어 실패 사유를 찾는다.
+     * UPDATE 로 잡힌 행 락은 커밋까지 유지되므로 이어서 읽은 잔액이 곧 이 거래의 잔액 스냅샷이다.
+     */
+    private TransactionDto useBalanceAtomically(Long userId, String accountNumber, Long amount) {
+        int updated = accountRepository.useBalance(userId, accountNumber, amount, AccountStatus.IN_USE);
+        if (updated == 0) {
+            throw useBalanceFailure(userId, accountNumber, amount);
+        }
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(()-> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        return saveUseTransaction(account, amount);
+    }
+
+    private AccountException useBalanceFailure(Long userId, String accountNumber, Long amount) {
+        AccountUser user = accountUserRepository.findById(userId)
                 .orElseThrow(()-> new AccountException(ErrorCode.USER_NOT_FOUND));
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(()-> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateUseBalance(user, account, amount);
+        validateUseBalance(user.getId(), account, amount);
+        // UPDATE 이후 다른 거래가 잔액을 채운 경우
+        return new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+    }
 
-        account.userBalance(amount);
+    /**
+     * 고른 칸부터 차례로 차감해보고, 어느 칸으로도 모자라면 칸 잔액을 다시 나눈 뒤 한 번 더 시도한다.
+     * 차감하지 못한 시도는 아무것도 쓰지 않으므로 롤백할 것이 없다.
+     */
+    private TransactionDto useSplitBalance(Long userId, String accountNumber, Long amount) {
+        AccountSummary account = balanceSlotService.findAccount(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (!Objects.equals(userId, account.getUserId())) {
+            accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
 
-        transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(USE)
-                        .transactionResultType(S)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapShot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .build()
+        int first = balanceSlotService.selectSlot(account.getBalanceSlots());
+        TransactionDto transactionDto = balanceUpdateExecutor.execute(() ->
+                doUseSplitBalance(account, first, amount));
+        if (transactionDto == null) {
+            balanceSlotService.rebalance(account, first, amount);
+            transactionDto = balanceUpdateExecutor.execute(() -> doUseSplitBalance(account, first, amount));
+        }
+        if (transactionDto == null) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        return transactionDto;
+    }
+
+    private TransactionDto doUseSplitBalance(AccountSummary accountSummary, int first, Long amount) {
+        if (!balanceSlotService.useBalance(accountSummary, first, amount)) {
+            return null;
+        }
+
+        Account account = accountRepository.findByAccountNumber(accountSummary.getAccountNumber())
+                .orElseThrow(()-> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Transaction transaction = buildUseTransaction(account, amount);
+        // 다른 칸에서 커밋 중인 차감은 빠져 있을 수 있다.
+        transaction.setBalanceSnapShot(account.getBalance() + balanceSlotService.sumBalance(account.getId()));
+        transactionLedger.save(transaction);
+        accountCache.evictUserAccounts(accountSummary.getUserId());
+        return TransactionDto.fromEntity(transaction);
+    }
+
+    private boolean isCachedOwner(Long userId, String accountNumber) {
+        return accountCache.getAccount(accountNumber)
+                .map(account -> Objects.equals(account.getUserId(), userId))
+                .orElse(false);
+    }
+
+    private TransactionDto saveUseTransaction(Account account, Long amount) {
+        Transaction transaction = transactionLedger.save(
+                buildUseTransaction(account, amount)
         );
+        accountCache.evictUserAccounts(account.getAccountUser().getId());
         return TransactionDto.fromEntity(transaction);
     }
 
-    private void validateUseBalance(AccountUser user, Account account ) {
-        if(!Objects.equals(user.getId(), account.getAccountUser().getId())){
+    private Transaction buildUseTransaction(Account account, Long amount) {
+        return buildTransaction(USE, account, amount, transactionIdGenerator.nextId());
+    }
+
+    private Transaction buildTransaction(TransactionType transactionType, Account account,
+                                         Long amount, String transactionId) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .account(account)
+                .amount(amount)
+                .balanceSnapShot(account.getBalance())
+                .transactionId(transactionId)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 잔액 사용 일괄 처리
+     * 1. 같은 계좌의 요청은 요청 순서대로 차감한다.
+     * 2. 잔액 부족 같은 업무 오류는 해당 요청만 F 로 응답하고 나머지는 반영한다.
+     * 3. DB 오류처럼 예상하지 못한 오류가 나면 일괄 전체가 반영되지 않는다.
+     * 계좌와 사용자는 한 번에 조회하고, 거래 내역은 JDBC 배치 INSERT 로 저장한다.
+     */
+    @AccountMetric("use.batch")
+    public List<UseBalance.Response> useBalanceBatch(List<UseBalance.Request> requests) {
+        if (balanceEngine.isEnabled()) {
+            return recordResults(balanceEngine.useBalanceBatch(requests));
+        }
+
+        List<String> accountNumbers = requests.stream()
+                .map(UseBalance.Request::getAccountNumber)
+                .distinct()
+                .sorted() // 여러 계좌 락을 항상 같은 순서로 잡아서 교착을 피한다.
+                .collect(Collectors.toList());
+
+        List<String> lockedAccountNumbers = new ArrayList<>();
+        Set<String> lockFailedAccountNumbers = new HashSet<>();
+        if (balanceUpdateExecutor.getMode() == ConcurrencyMode.LOCK) {
+            for (String accountNumber : accountNumbers) {
+                try {
+                    lockService.lock(accountNumber);
+                    lockedAccountNumbers.add(accountNumber);
+                } catch (AccountException e) {
+                    lockFailedAccountNumbers.add(accountNumber);
+                }
+            }
+        }
+
+        try {
+            return recordResults(balanceUpdateExecutor.executeWithRetry(() ->
+                    doUseBalanceBatch(requests, accountNumbers, lockFailedAccountNumbers)));
+        } finally {
+            for (String accountNumber : lockedAccountNumbers) {
+                lockService.unlock(accountNumber);
+            }
+        }
+    }
+
+    private List<UseBalance.Response> doUseBalanceBatch(List<UseBalance.Request> requests,
+                                                       List<String> accountNumbers,
+                                                       Set<String> lockFailedAccountNumbers) {
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers)
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+        Map<Long, AccountUser> users = accountUserRepository.findAllById(
+                        requests.stream()
+                                .map(UseBalance.Request::getUserId)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+
+        List<UseBalance.Response> responses = new ArrayList<>(requests.size());
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                if (lockFailedAccountNumbers.contains(request.getAccountNumber())) {
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                AccountUser user = Optional.ofNullable(users.get(request.getUserId()))
+                        .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+                Account account = Optional.ofNullable(accounts.get(request.getAccountNumber()))
+                        .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+                validateUseBalance(user.getId(), account, request.getAmount());
+                account.useBalance(request.getAmount());
+
+                Transaction transaction = buildUseTransaction(account, request.getAmount());
+                transactions.add(transaction);
+                responses.add(UseBalance.Response.from(TransactionDto.fromEntity(transaction)));
+            } catch (AccountException e) {
+                responses.add(UseBalance.Response.failed(request, e.getErrorCode()));
+            }
+        }
+
+        transactionLedger.saveAll(transactions);
+        transactions.stream()
+                .map(transaction -> transaction.getAccount().getAccountUser().getId())
+                .distinct()
+                .forEach(accountCache::evictUserAccounts);
+        return responses;
+    }
+
+    /**
+     * 성공한 거래는 최근 거래 캐시에 넣고, 실패한 거래는 실패 기록 큐에 넘긴다.
+     */
+    private List<UseBalance.Response> recordResults(List<UseBalance.Response> responses) {
+        for (UseBalance.Response response : responses) {
+            if (response.getTransactionResult() == S) {
+                recentTransactionCache.put(TransactionSummary.builder()
+                        .transactionId(response.getTransactionId())
+                        .accountNumber(response.getAccountNumber())
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(response.getAmount())
+                        .transactedAt(response.getTransactedAt())
+                        .build());
+            } else {
+                saveFailedUseTransaction(response.getAccountNumber(), response.getAmount());
+            }
+        }
+        return responses;
+    }
+
+    private void validateUseBalance(Long userId, Account account, Long amount) {
+        if(!Objects.equals(userId, account.getAccountUser().getId())){
             throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
         }
         if(account.getAccountStatus() != AccountStatus.IN_USE){
@@ -61,11 +325,231 @@ public class TransactionService {
         }
     }
 
-    @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+    /**
+     * 잔액 사용 취소
+     * 1. 원거래는 최근 거래 캐시에서 먼저 찾고, 없으면 transactionId unique 인덱스로 조회한다.
+     * 2. 성공한 잔액 사용 거래를, 1년 안에, 전액만 취소할 수 있다.
+     * 3. 잔액은 잔액 사용과 같은 방식(LOCK / OPTIMISTIC / ATOMIC / BalanceEngine)으로 더한다.
+     *    잔액을 나눠 담은 계좌는 락을 잡지 않으므로 조건부 UPDATE 로 0번 칸에 더한다.
+     * 4. 취소 거래는 WRITE_BEHIND 모드에서도 바로 저장해서, 같은 거래를 동시에 두 번 취소하면
+     *    나중에 커밋하는 쪽이 unique 인덱스에 걸려 잔액 변경까지 롤백된다.
+     */
+    @AccountMetric("cancel")
+    @AccountLock
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        TransactionSummary original = findOriginalTransaction(transactionId);
+        validateCancelBalance(original, accountNumber, amount);
+
+        String cancelTransactionId = transactionId + CANCEL_TRANSACTION_SUFFIX;
+        TransactionDto transactionDto;
+        if (balanceEngine.isEnabled()) {
+            transactionDto = balanceEngine.cancelBalance(transactionId, cancelTransactionId, accountNumber, amount);
+        } else {
+            try {
+                transactionDto = balanceUpdateExecutor.execute(() ->
+                        doCancelBalance(cancelTransactionId, accountNumber, amount));
+            } catch (DataIntegrityViolationException e) {
+                throw new AccountException(ErrorCode.TRANSACTION_ALREADY_CANCELED);
+            }
+        }
+        recentTransactionCache.markCanceled(original);
+        return transactionDto;
+    }
+
+    private TransactionSummary findOriginalTransaction(String transactionId) {
+        Optional<TransactionSummary> cached = recentTransactionCache.get(transactionId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        TransactionSummary original = TransactionSummary.fromEntity(transaction,
+                transactionRepository.existsByTransactionId(transactionId + CANCEL_TRANSACTION_SUFFIX));
+        recentTransactionCache.put(original);
+        return original;
+    }
+
+    private void validateCancelBalance(TransactionSummary original, String accountNumber, Long amount) {
+        if (!Objects.equals(original.getAccountNumber(), accountNumber)) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        if (original.getTransactionType() != USE || original.getTransactionResultType() != S) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_CANCELABLE);
+        }
+        if (original.getAmount() != amount) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (original.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+        if (original.isCanceled()) {
+            throw new AccountException(ErrorCode.TRANSACTION_ALREADY_CANCELED);
+        }
+    }
+
+    private TransactionDto doCancelBalance(String cancelTransactionId, String accountNumber, Long amount) {
+        Account account;
+        if (balanceUpdateExecutor.getMode() == ConcurrencyMode.ATOMIC
+                || balanceSlotService.isSplit(accountNumber)) {
+            int updated = accountRepository.cancelBalance(accountNumber, amount, AccountStatus.IN_USE);
+            account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            if (updated == 0) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+        } else {
+            account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            if (account.getAccountStatus() != AccountStatus.IN_USE) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            account.cancelBalance(amount);
+        }
+
+        Transaction transaction = transactionRepository.save(
+                buildTransaction(CANCEL, account, amount, cancelTransactionId));
+        dailySummaryAggregator.add(Collections.singletonList(transaction));
+        accountCache.evictUserAccounts(account.getAccountUser().getId());
+        return TransactionDto.fromEntity(transaction);
+    }
+
+    /**
+     * 계좌 간 이체
+     * 1. 동시성 모드와 관계없이 두 계좌의 락을 계좌 번호 순서로 잡는다. (LockService.lockAll)
+     *    락 없이 두 행을 바꾸면 한 행을 쓴 뒤 다른 행에서 충돌해 롤백되는 일이 잦다.
+     * 2. 두 계좌를 읽어서 검사를 끝낸 다음에 바꾸고, 커밋할 때 버전 조건이 붙은 UPDATE 두 개가
+     *    hibernate.order_updates 로 항상 id 순서로 나간다. 그래서 반대 방향 이체가 동시에 와도
+     *    서로 상대 계좌의 행 락을 기다리며 멈추지 않는다.
+     *    락을 잡지 않는 단건 사용/취소와 버전이 충돌하면 일괄 처리처럼 처음부터 다시 실행한다.
+     *    (ATOMIC 의 조건부 UPDATE 로 입금부터 하면 출금이 실패했을 때 쓴 것을 되돌려야 한다)
+     * 3. 출금(TRANSFER_OUT) / 입금(TRANSFER_IN) 거래 내역은 같은 트랜잭션에서 한 번에 저장한다.
+     * 4. BalanceEngine 을 켜면 출금 계좌 샤드에서 차감한 뒤 입금 계좌 샤드에서 더한다.
+     *
+     * @return 출금 거래
+     */
+    @AccountMetric("transfer")
+    public TransactionDto transferBalance(Long userId, String fromAccountNumber,
+                                          String toAccountNumber, Long amount) {
+        if (Objects.equals(fromAccountNumber, toAccountNumber)) {
+            throw new AccountException(ErrorCode.TRANSFER_SAME_ACCOUNT);
+        }
+
+        String transactionId = transactionIdGenerator.nextId();
+        if (balanceEngine.isEnabled()) {
+            return balanceEngine.transferBalance(userId, fromAccountNumber, toAccountNumber, amount,
+                    transactionId, transactionId + TRANSFER_IN_SUFFIX);
+        }
+
+        List<String> lockedAccountNumbers = lockService.lockAll(Arrays.asList(fromAccountNumber, toAccountNumber));
+        try {
+            return balanceUpdateExecutor.executeWithRetry(() ->
+                    doTransferBalance(userId, fromAccountNumber, toAccountNumber, amount, transactionId));
+        } finally {
+            lockService.unlockAll(lockedAccountNumbers);
+        }
+    }
+
+    private TransactionDto doTransferBalance(Long userId, String fromAccountNumber, String toAccountNumber,
+                                             Long amount, String transactionId) {
+        boolean cachedOwner = isCachedOwner(userId, fromAccountNumber);
+        Long verifiedUserId = cachedOwner ? userId : accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND))
+                .getId();
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        Arrays.asList(fromAccountNumber, toAccountNumber))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+        Account from = Optional.ofNullable(accounts.get(fromAccountNumber))
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Account to = Optional.ofNullable(accounts.get(toAccountNumber))
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        validateUseBalance(verifiedUserId, from, amount);
+        if (to.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        from.useBalance(amount);
+        to.cancelBalance(amount); // 취소와 같이 잔액에 더한다.
+
+        Transaction transferOut = buildTransaction(TRANSFER_OUT, from, amount, transactionId);
+        transactionLedger.saveAll(Arrays.asList(transferOut,
+                buildTransaction(TRANSFER_IN, to, amount, transactionId + TRANSFER_IN_SUFFIX)));
+        accountCache.evictUserAccounts(from.getAccountUser().getId());
+        accountCache.evictUserAccounts(to.getAccountUser().getId());
+        return TransactionDto.fromEntity(transferOut);
+    }
+
+    /**
+     * 거래 확인 (WRITE_BEHIND 모드에서는 DB 에 반영된 뒤부터 조회된다)
+     * 복제 DB 에 아직 없으면 주 DB 에서 한 번 더 찾는다.
+     */
+    public TransactionDto queryTransaction(String transactionId) {
+        return TransactionDto.fromEntity(readReplicaRouter.readOrPrimary(
+                        () -> transactionRepository.findByTransactionId(transactionId))
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+    }
+
+    /**
+     * 계좌 거래 목록 (최신순)
+     * after 는 이전 페이지의 마지막 transactionId 이고, 그 거래의 (transactedAt, id) 다음부터
+     * (account_id, transacted_at, id) 인덱스를 limit 건만 읽는다. (OFFSET 을 쓰지 않는다)
+     * 거래 목록은 복제 DB 에서 읽는다. (방금 거래한 계좌 소유자는 주 DB)
+     */
+    public QueryTransactionPage queryTransactions(String accountNumber, String after, int limit) {
+        AccountSummary account = findAccount(accountNumber);
+        Long accountId = account.getId();
+        PageRequest page = PageRequest.of(0, limit);
+
+        List<Transaction> transactions = readReplicaRouter.readAfterWrite(account.getUserId(), () -> {
+            if (after == null) {
+                return transactionRepository.findLatestByAccountId(accountId, page);
+            }
+            Transaction cursor = transactionRepository.findByTransactionId(after)
+                    .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+            if (!Objects.equals(cursor.getAccount().getId(), accountId)) {
+                throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+            }
+            return transactionRepository.findByAccountIdBefore(
+                    accountId, cursor.getTransactedAt(), cursor.getId(), page);
+        });
+
+        return QueryTransactionPage.builder()
+                .transactions(transactions.stream()
+                        .map(transaction -> QueryTransactionResponse.from(TransactionDto.fromEntity(transaction)))
+                        .collect(Collectors.toList()))
+                .next(transactions.size() < limit ? null
+                        : transactions.get(transactions.size() - 1).getTransactionId())
+                .build();
+    }
+
+    /**
+     * 트랜잭션 밖에서 찾으므로 캐시에 없으면 주 DB 에서 읽는다.
+     */
+    private AccountSummary findAccount(String accountNumber) {
+        return accountCache.getAccount(accountNumber)
+                .orElseGet(() -> {
+                    Account account = accountRepository.findByAccountNumber(accountNumber)
+                            .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+                    AccountSummary summary = AccountSummary.fromEntity(account);
+                    accountCache.putAccount(summary);
+                    return summary;
+                });
+    }
+
+    /**
+     * 실패한 거래는 요청 경로에서 저장하지 않고 FailedTransactionRecorder 큐에 넘긴다.
+     */
+    public void saveFailedUseTransaction(String accountNumber, Long amount) {
+        failedTransactionRecorder.record(USE, accountNumber, amount);
+    }
+
+    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
+        failedTransactionRecorder.record(CANCEL, accountNumber, amount);
+    }
 
+    public void saveFailedTransferTransaction(String fromAccountNumber, Long amount) {
+        failedTransactionRecorder.record(TRANSFER_OUT, fromAccountNumber, amount);
     }
 
 }
@@ -0,0 +1,13 @@
+package com.example.account.service;
+
+import java.util.UUID;
+
+/**
+ * 예전 방식 : 32자리 랜덤 hex (SecureRandom, 시간 순서 없음)
+ */
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
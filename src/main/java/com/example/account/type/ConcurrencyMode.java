@@ -0,0 +1,7 @@
+package com.example.account.type;
+
+public enum ConcurrencyMode {
+    LOCK,
+    OPTIMISTIC,
+    ATOMIC
+}
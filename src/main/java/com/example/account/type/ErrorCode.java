@@ -14,10 +14,21 @@ public enum ErrorCode {
     MAX_ACCOUNT_PER_USER_10 ("사용자 최대 계좌는 10개 입니다."),
     CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
     TOO_OLD_ORDER_TO_CANCEL("1년이 지난 거래는 취소가 불가능합니다."),
+    TRANSACTION_ALREADY_CANCELED("이미 취소된 거래입니다."),
+    TRANSACTION_NOT_CANCELABLE("성공한 잔액 사용 거래만 취소할 수 있습니다."),
+    INVALID_DATE_RANGE("조회 기간은 시작일부터 최대 1년입니다."),
+    TRANSFER_SAME_ACCOUNT("같은 계좌로 이체할 수 없습니다."),
+    BALANCE_SLOTS_CANNOT_DECREASE("잔액을 나눠 담는 칸 수는 줄일 수 없습니다."),
+    BALANCE_SLOT_UNAVAILABLE("잔액 칸 나누기를 사용하지 않는 설정입니다."),
 
     BALANCE_NOT_EMPTY ("잔액이 있는 계좌는 해지할 수 없습니다."),
 
-    ACCOUNT_NOT_FOUND("계좌가 없습니다.");
+    ACCOUNT_NOT_FOUND("계좌가 없습니다."),
+    TRANSACTION_NOT_FOUND("해당 거래가 없습니다."),
+    ACCOUNT_TRANSACTION_LOCK("해당 계좌는 사용 중입니다."),
+    IDEMPOTENCY_KEY_IN_PROGRESS("같은 Idempotency-Key 의 요청을 처리 중입니다."),
+    IDEMPOTENCY_KEY_REUSED("Idempotency-Key 를 다른 요청에 사용할 수 없습니다."),
+    TOO_MANY_REQUESTS("처리 대기 중인 요청이 많습니다. 잠시 후 다시 시도해주세요.");
 
     private final String description;
 }
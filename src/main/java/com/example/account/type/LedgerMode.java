@@ -0,0 +1,6 @@
+package com.example.account.type;
+
+public enum LedgerMode {
+    SYNC,
+    WRITE_BEHIND
+}
@@ -1,6 +1,6 @@
 package com.example.account.type;
 
 public enum TransactionType {
-    USE, CANCEL
+    USE, CANCEL, TRANSFER_OUT, TRANSFER_IN
 
 }
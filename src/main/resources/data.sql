@@ -1,6 +1,6 @@
-insert into account_user(id, name, created_at, updated_at)
+insert into account_user(id, name, create_at, update_at)
 values (1, 'Pororo', now(), now());
-insert into account_user(id, name, created_at, updated_at)
+insert into account_user(id, name, create_at, update_at)
 values (2, 'Lupi', now(), now());
-insert into account_user(id, name, created_at, updated_at)
+insert into account_user(id, name, create_at, update_at)
 values (3, 'Eddie', now(), now());
\ No newline at end of file
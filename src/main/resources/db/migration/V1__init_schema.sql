@@ -0,0 +1,83 @@
+-- 엔티티와 같은 스키마 (h2file / postgres 프로필에서 Flyway 가 만들고, hibernate 는 validate 만 한다)
+-- H2 와 PostgreSQL 에서 모두 실행되는 SQL 만 쓴다.
+
+create sequence hibernate_sequence start with 1 increment by 1;
+-- Transaction.id : 배치 INSERT 시 50개씩 미리 받아둔다 (allocationSize 와 같아야 한다)
+create sequence transaction_seq start with 1 increment by 50;
+
+create table account_user (
+    id            bigint       not null,
+    name          varchar(255),
+    account_count integer      default 0 not null,
+    create_at     timestamp,
+    update_at     timestamp,
+    primary key (id)
+);
+
+create table account (
+    id              bigint       not null,
+    account_user_id bigint,
+    account_number  varchar(255),
+    account_status  varchar(255),
+    balance         bigint,
+    balance_slots   integer      default 0 not null,
+    version         bigint,
+    registered_at   timestamp,
+    unregistered_at timestamp,
+    create_at       timestamp,
+    update_at       timestamp,
+    primary key (id),
+    constraint fk_account_account_user foreign key (account_user_id) references account_user (id)
+);
+-- 모든 거래가 계좌 번호로 계좌를 찾는다.
+create unique index ux_account_account_number on account (account_number);
+-- 사용자별 계좌 목록 (PostgreSQL 은 외래 키에 인덱스를 만들지 않는다)
+create index ix_account_account_user_id on account (account_user_id);
+
+create table account_balance_slot (
+    id         bigint  not null,
+    account_id bigint,
+    slot_no    integer not null,
+    balance    bigint,
+    create_at  timestamp,
+    update_at  timestamp,
+    primary key (id),
+    constraint fk_account_balance_slot_account foreign key (account_id) references account (id)
+);
+create unique index ux_account_balance_slot_account_slot on account_balance_slot (account_id, slot_no);
+
+create table transaction (
+    id                      bigint       not null,
+    transaction_type        varchar(255),
+    transaction_result_type varchar(255),
+    account_id              bigint,
+    amount                  bigint,
+    balance_snap_shot       bigint,
+    transaction_id          varchar(255),
+    transacted_at           timestamp,
+    create_at               timestamp,
+    update_at               timestamp,
+    primary key (id),
+    constraint fk_transaction_account foreign key (account_id) references account (id)
+);
+-- 거래 확인 / 취소 (취소 거래 id 중복도 이 인덱스로 막는다)
+create unique index ux_transaction_transaction_id on transaction (transaction_id);
+-- 계좌별 거래 목록 (최신순 keyset 페이지 조회, 내보내기)
+create index ix_transaction_account_transacted_at on transaction (account_id, transacted_at, id);
+
+create table account_daily_summary (
+    id                bigint not null,
+    account_id        bigint,
+    summary_date      date,
+    debit_amount      bigint,
+    credit_amount     bigint,
+    transaction_count bigint,
+    closing_balance   bigint,
+    closing_at        timestamp,
+    version           bigint,
+    create_at         timestamp,
+    update_at         timestamp,
+    primary key (id),
+    constraint fk_account_daily_summary_account foreign key (account_id) references account (id)
+);
+create unique index ux_account_daily_summary_account_date on account_daily_summary (account_id, summary_date);
@@ -0,0 +1,7 @@
+-- data.sql 과 같은 사용자 (사용자 생성 API 가 없다)
+insert into account_user(id, name, create_at, update_at)
+values (1, 'Pororo', now(), now());
+insert into account_user(id, name, create_at, update_at)
+values (2, 'Lupi', now(), now());
+insert into account_user(id, name, create_at, update_at)
+values (3, 'Eddie', now(), now());
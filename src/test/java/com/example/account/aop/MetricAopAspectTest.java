@@ -0,0 +1,47 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricAopAspectTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Operations operations;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Operations());
+        factory.addAspect(new MetricAopAspect(meterRegistry));
+        operations = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("성공과 실패(ErrorCode)를 outcome 태그로 나눠서 기록한다")
+    void recordOutcome() {
+        //when
+        operations.use(false);
+        assertThrows(AccountException.class, () -> operations.use(true));
+
+        //then
+        assertEquals(1L, meterRegistry.get("account.operation")
+                .tags("operation", "use", "outcome", "SUCCESS").timer().count());
+        assertEquals(1L, meterRegistry.get("account.operation")
+                .tags("operation", "use", "outcome", "AMOUNT_EXCEED_BALANCE").timer().count());
+    }
+
+    static class Operations {
+        @AccountMetric("use")
+        public void use(boolean fail) {
+            if (fail) {
+                throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.account.config;
+
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.type.TransactionIdStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransactionIdGeneratorConfigTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock taken;
+
+    @Mock
+    private RLock free;
+
+    private final TransactionIdGeneratorConfig config = new TransactionIdGeneratorConfig();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(config, "strategy", TransactionIdStrategy.SNOWFLAKE);
+        given(taken.tryLock()).willReturn(false);
+        given(free.tryLock()).willReturn(true);
+    }
+
+    @Test
+    @DisplayName("node-id 를 정하지 않으면 다른 인스턴스가 쓰지 않는 node-id 를 Redis 에서 빌린다")
+    void leaseFreeNodeId() {
+        //given
+        ReflectionTestUtils.setField(config, "nodeId", -1);
+        given(redissonClient.getLock(anyString())).willReturn(taken);
+        given(redissonClient.getLock("TXID_NODE:2")).willReturn(free);
+
+        //when
+        TransactionIdGenerator generator = config.transactionIdGenerator(redissonClient);
+
+        //then
+        assertEquals(2, nodeId(generator.nextId()));
+    }
+
+    @Test
+    @DisplayName("빈 node-id 가 없으면 기동하지 않는다")
+    void failWhenNoNodeIdIsFree() {
+        //given
+        ReflectionTestUtils.setField(config, "nodeId", -1);
+        given(redissonClient.getLock(anyString())).willReturn(taken);
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> config.transactionIdGenerator(redissonClient));
+
+        //then
+        assertTrue(exception.getMessage().contains("account.transaction-id.node-id"));
+    }
+
+    @Test
+    @DisplayName("node-id 를 정했으면 Redis 를 쓰지 않는다")
+    void useConfiguredNodeId() {
+        //given
+        ReflectionTestUtils.setField(config, "nodeId", 7);
+
+        //when
+        TransactionIdGenerator generator = config.transactionIdGenerator(redissonClient);
+
+        //then
+        assertEquals(7, nodeId(generator.nextId()));
+        verifyNoInteractions(redissonClient);
+    }
+
+    // 경과 ms 41bit | 노드 10bit | 순번 12bit
+    private static long nodeId(String transactionId) {
+        return (Long.parseUnsignedLong(transactionId, 16) >>> 12) & 1023;
+    }
+}
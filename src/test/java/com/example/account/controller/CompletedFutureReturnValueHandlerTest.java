@@ -0,0 +1,90 @@
+package com.example.account.controller;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestResponseBodyMethodProcessor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class CompletedFutureReturnValueHandlerTest {
+    private final HandlerMethodReturnValueHandler futureHandler = mock(HandlerMethodReturnValueHandler.class);
+    private final CompletedFutureReturnValueHandler handler = new CompletedFutureReturnValueHandler(
+            new RequestResponseBodyMethodProcessor(List.of(new MappingJackson2HttpMessageConverter())),
+            futureHandler);
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    @DisplayName("끝난 future 는 비동기 디스패치 없이 바로 응답 본문으로 쓴다")
+    void writeCompletedFutureDirectly() throws Exception {
+        //given
+        MethodParameter returnType = returnType();
+
+        //when
+        handler.handleReturnValue(CompletableFuture.completedFuture(List.of("1000000000")), returnType,
+                new ModelAndViewContainer(), new ServletWebRequest(request, response));
+
+        //then
+        assertTrue(handler.supportsReturnType(returnType));
+        assertFalse(request.isAsyncStarted());
+        assertEquals("[\"1000000000\"]", response.getContentAsString());
+        verifyNoInteractions(futureHandler);
+    }
+
+    @Test
+    @DisplayName("실패한 future 는 원래 예외를 던진다")
+    void throwCauseOfFailedFuture() {
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> handler.handleReturnValue(
+                        CompletableFuture.failedFuture(new AccountException(ErrorCode.TOO_MANY_REQUESTS)),
+                        returnType(), new ModelAndViewContainer(), new ServletWebRequest(request, response)));
+
+        //then
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("끝나지 않은 future 는 기본 처리로 넘긴다")
+    void delegatePendingFuture() throws Exception {
+        //given
+        CompletableFuture<List<String>> pending = new CompletableFuture<>();
+
+        //when
+        handler.handleReturnValue(pending, returnType(), new ModelAndViewContainer(),
+                new ServletWebRequest(request, response));
+
+        //then
+        verify(futureHandler).handleReturnValue(eq(pending), any(), any(), any());
+    }
+
+    private static MethodParameter returnType() throws NoSuchMethodException {
+        return new MethodParameter(SampleController.class.getMethod("accounts"), -1);
+    }
+
+    @RestController
+    static class SampleController {
+        public CompletableFuture<List<String>> accounts() {
+            return CompletableFuture.completedFuture(List.of());
+        }
+    }
+}
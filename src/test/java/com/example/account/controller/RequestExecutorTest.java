@@ -0,0 +1,105 @@
+package com.example.account.controller;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.RequestExecutionMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestExecutorTest {
+    private final ThreadPoolTaskExecutor writeExecutor = executor("test-write-");
+    private final ThreadPoolTaskExecutor readExecutor = executor("test-read-");
+
+    @AfterEach
+    void tearDown() {
+        writeExecutor.shutdown();
+        readExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("SYNC 모드는 호출한 스레드에서 바로 실행한다")
+    void syncRunsOnCallerThread() {
+        //given
+        RequestExecutor requestExecutor = new RequestExecutor(
+                RequestExecutionMode.SYNC, writeExecutor, readExecutor);
+
+        //when
+        CompletableFuture<String> result = requestExecutor.write(() -> Thread.currentThread().getName());
+
+        //then
+        assertTrue(result.isDone());
+        assertEquals(Thread.currentThread().getName(), result.join());
+    }
+
+    @Test
+    @DisplayName("ASYNC 모드는 쓰기/조회 요청을 각각의 풀에서 실행하고 예외는 실패한 future 로 넘긴다")
+    void asyncRunsOnPools() throws Exception {
+        //given
+        RequestExecutor requestExecutor = new RequestExecutor(
+                RequestExecutionMode.ASYNC, writeExecutor, readExecutor);
+
+        //when
+        String writeThread = requestExecutor.write(() -> Thread.currentThread().getName()).get();
+        String readThread = requestExecutor.read(() -> Thread.currentThread().getName()).get();
+        CompletableFuture<Object> failed = requestExecutor.write(() -> {
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        });
+
+        //then
+        assertTrue(writeThread.startsWith("test-write-"));
+        assertTrue(readThread.startsWith("test-read-"));
+        ExecutionException exception = assertThrows(ExecutionException.class, failed::get);
+        assertInstanceOf(AccountException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("풀과 큐가 가득 차면 TOO_MANY_REQUESTS 로 바로 거절한다")
+    void rejectWhenQueueIsFull() throws Exception {
+        //given
+        RequestExecutor requestExecutor = new RequestExecutor(
+                RequestExecutionMode.ASYNC, writeExecutor, readExecutor);
+        CountDownLatch release = new CountDownLatch(1);
+        requestExecutor.write(() -> await(release));
+        requestExecutor.write(() -> await(release));
+
+        //when
+        CompletableFuture<Object> rejected = requestExecutor.write(() -> "never");
+        release.countDown();
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS,
+                ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    private static ThreadPoolTaskExecutor executor(String threadNamePrefix) {
+        // 스레드 1개, 큐 1개
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        return executor;
+    }
+
+    private static Object await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountUser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 여러 트랜잭션이 동시에 커밋하는 상황을 보려고 테스트 트랜잭션 없이 실행한다.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountUserRepositoryTest {
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("동시에 늘려도 max 를 넘지 않고, 넘는 요청은 0 을 돌려받는다")
+    void incrementAccountCountConcurrently() throws Exception {
+        //given
+        AccountUser user = accountUserRepository.save(AccountUser.builder().name("Crong").build());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            results.add(executor.submit(() -> transactionTemplate.execute(status ->
+                    accountUserRepository.incrementAccountCount(user.getId(), 10))));
+        }
+        int incremented = 0;
+        for (Future<Integer> result : results) {
+            incremented += result.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertEquals(10, incremented);
+        assertEquals(10, accountUserRepository.findById(user.getId()).get().getAccountCount());
+        Integer unknownUser = transactionTemplate.execute(status ->
+                accountUserRepository.incrementAccountCount(Long.MAX_VALUE, 10));
+        assertEquals(0, unknownUser);
+    }
+}
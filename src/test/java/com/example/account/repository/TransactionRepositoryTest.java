@@ -0,0 +1,121 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class TransactionRepositoryTest {
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        AccountUser user = entityManager.find(AccountUser.class, 1L); // data.sql
+        account = entityManager.persist(Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000012")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .build());
+        Account other = entityManager.persist(Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000013")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .build());
+
+        // 같은 시각의 거래가 섞여 있어도 id 로 순서가 정해진다.
+        LocalDateTime base = LocalDateTime.of(2022, 6, 1, 12, 0);
+        for (int i = 0; i < 7; i++) {
+            entityManager.persist(transaction(account, "tx-" + i, base.plusMinutes(i / 2)));
+            entityManager.persist(transaction(other, "other-" + i, base.plusMinutes(i)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("keyset 페이지를 이어서 읽으면 계좌의 거래를 최신순으로 빠짐없이 한 번씩 읽는다")
+    void pagesCoverAllTransactionsInOrder() {
+        //given
+        PageRequest page = PageRequest.of(0, 3);
+        List<String> read = new ArrayList<>();
+
+        //when
+        List<Transaction> transactions = transactionRepository.findLatestByAccountId(account.getId(), page);
+        while (!transactions.isEmpty()) {
+            transactions.forEach(transaction -> read.add(transaction.getTransactionId()));
+            Transaction last = transactions.get(transactions.size() - 1);
+            transactions = transactionRepository.findByAccountIdBefore(
+                    account.getId(), last.getTransactedAt(), last.getId(), page);
+        }
+
+        //then
+        assertEquals(List.of("tx-6", "tx-5", "tx-4", "tx-3", "tx-2", "tx-1", "tx-0"), read);
+    }
+
+    @Test
+    @DisplayName("거래 id 로 조회한다")
+    void findByTransactionId() {
+        assertEquals(account.getId(), transactionRepository.findByTransactionId("tx-3")
+                .get().getAccount().getId());
+        assertFalse(transactionRepository.findByTransactionId("none").isPresent());
+    }
+
+    @Test
+    @DisplayName("거래 목록과 거래 id 조회는 인덱스를 탄다")
+    void queriesUseIndexes() {
+        String pagePlan = explain("select * from transaction where account_id = " + account.getId()
+                + " and transacted_at <= now() and (transacted_at < now() or id < 100)"
+                + " order by transacted_at desc, id desc limit 20");
+        String lookupPlan = explain("select * from transaction where transaction_id = 'tx-3'");
+
+        assertTrue(pagePlan.contains("IX_TRANSACTION_ACCOUNT_TRANSACTED_AT"), pagePlan);
+        assertTrue(lookupPlan.contains("UX_TRANSACTION_TRANSACTION_ID"), lookupPlan);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForList("explain " + sql, String.class).stream()
+                .collect(Collectors.joining("\n"))
+                .toUpperCase();
+    }
+
+    private static Transaction transaction(Account account, String transactionId, LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .account(account)
+                .amount(100L)
+                .balanceSnapShot(9900L)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
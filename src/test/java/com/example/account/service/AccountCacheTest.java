@@ -0,0 +1,158 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummary;
+import com.example.account.type.AccountStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RTopic;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AccountCacheTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RMapCache<Object, Object> remoteUserAccounts;
+
+    @Mock
+    private RMapCache<Object, Object> remoteAccounts;
+
+    @Mock
+    private RTopic invalidations;
+
+    @Mock
+    private ReadReplicaRouter readReplicaRouter;
+
+    @Captor
+    private ArgumentCaptor<MessageListener<String>> listener;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private AccountCache accountCache;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getMapCache(eq("ACCOUNT_CACHE:USER"), any(Codec.class))).willReturn(remoteUserAccounts);
+        given(redissonClient.getMapCache(eq("ACCOUNT_CACHE:NUMBER"), any(Codec.class))).willReturn(remoteAccounts);
+        given(redissonClient.getTopic(eq("ACCOUNT_CACHE:INVALIDATE"), any(Codec.class))).willReturn(invalidations);
+        accountCache = new AccountCache(redissonClient, objectMapper, readReplicaRouter, new SimpleMeterRegistry(),
+                true, 100, 30, 300);
+    }
+
+    @Test
+    @DisplayName("프로세스 캐시에 있으면 Redis 를 조회하지 않는다")
+    void localHit() {
+        //given
+        accountCache.putAccountsByUserId(12L, Collections.singletonList(account("1000000012")));
+
+        //when
+        Optional<List<AccountDto>> accounts = accountCache.getAccountsByUserId(12L);
+
+        //then
+        assertEquals("1000000012", accounts.get().get(0).getAccountNumber());
+        verify(remoteUserAccounts, never()).get(any());
+    }
+
+    @Test
+    @DisplayName("Redis 에서 찾은 값은 프로세스 캐시에 채운다")
+    void remoteHitFillsLocal() throws Exception {
+        //given
+        given(remoteAccounts.get("1000000012")).willReturn(objectMapper.writeValueAsString(
+                AccountSummary.builder()
+                        .id(1L)
+                        .userId(12L)
+                        .accountNumber("1000000012")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .build()));
+
+        //when
+        accountCache.getAccount("1000000012");
+        Optional<AccountSummary> account = accountCache.getAccount("1000000012");
+
+        //then
+        assertEquals(12L, account.get().getUserId());
+        assertEquals(AccountStatus.IN_USE, account.get().getAccountStatus());
+        verify(remoteAccounts, times(1)).get("1000000012");
+    }
+
+    @Test
+    @DisplayName("해지하면 사용자와 계좌 번호 항목을 두 단계 캐시에서 모두 지우고, 사용자를 주 DB 에서 읽도록 표시한다")
+    void evictAccount() {
+        //given
+        accountCache.putAccountsByUserId(12L, Collections.singletonList(account("1000000012")));
+        accountCache.putAccount(AccountSummary.builder()
+                .userId(12L)
+                .accountNumber("1000000012")
+                .accountStatus(AccountStatus.IN_USE)
+                .build());
+
+        //when
+        accountCache.evictAccount(12L, "1000000012");
+
+        //then
+        assertFalse(accountCache.getAccountsByUserId(12L).isPresent());
+        assertFalse(accountCache.getAccount("1000000012").isPresent());
+        verify(remoteUserAccounts).fastRemove("12");
+        verify(remoteAccounts).fastRemove("1000000012");
+        verify(invalidations).publish("U:12");
+        verify(invalidations).publish("A:1000000012");
+        verify(readReplicaRouter).markWritten(12L);
+    }
+
+    @Test
+    @DisplayName("다른 노드에서 지우라는 알림을 받으면 프로세스 캐시에서 지운다")
+    void invalidateOnMessageFromOtherNode() {
+        //given
+        verify(invalidations).addListener(eq(String.class), listener.capture());
+        accountCache.putAccountsByUserId(12L, Collections.singletonList(account("1000000012")));
+        accountCache.putAccount(AccountSummary.builder()
+                .userId(12L)
+                .accountNumber("1000000012")
+                .accountStatus(AccountStatus.IN_USE)
+                .build());
+
+        //when
+        listener.getValue().onMessage("ACCOUNT_CACHE:INVALIDATE", "U:12");
+        listener.getValue().onMessage("ACCOUNT_CACHE:INVALIDATE", "A:1000000012");
+
+        //then
+        assertFalse(accountCache.getAccountsByUserId(12L).isPresent());
+        assertFalse(accountCache.getAccount("1000000012").isPresent());
+    }
+
+    private static AccountDto account(String accountNumber) {
+        return AccountDto.builder()
+                .userId(12L)
+                .accountNumber(accountNumber)
+                .balance(1000L)
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AccountNumberAllocatorTest {
+    private static final int ACCOUNTS_PER_THREAD = 2_000;
+    private static final int BLOCK_SIZE = 100;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RAtomicLong sequence;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    // Redis 에 있는 시퀀스 역할
+    private final AtomicLong redisValue = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getAtomicLong(AccountNumberAllocator.SEQUENCE_KEY))
+                .willReturn(sequence);
+        given(sequence.get()).willAnswer(invocation -> redisValue.get());
+        given(sequence.compareAndSet(anyLong(), anyLong())).willAnswer(invocation ->
+                redisValue.compareAndSet(invocation.getArgument(0), invocation.getArgument(1)));
+        given(sequence.addAndGet(anyLong())).willAnswer(invocation ->
+                redisValue.addAndGet(invocation.getArgument(0)));
+        given(accountRepository.findMaxAccountNumber()).willReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("첫 계좌 번호는 1000000000 부터 발급")
+    void firstAccountNumber() {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository);
+
+        //when
+        String first = allocator.nextAccountNumber();
+        String second = allocator.nextAccountNumber();
+
+        //then
+        assertEquals("1000000000", first);
+        assertEquals("1000000001", second);
+    }
+
+    @Test
+    @DisplayName("Redis 가 비어 있으면 마지막에 만든 계좌가 아니라 DB 의 가장 큰 번호 다음부터 발급")
+    void continueFromMaxAccountNumber() {
+        //given
+        // 다른 노드가 먼저 예약한 블록의 번호가 나중에 만든 계좌보다 클 수 있다.
+        given(accountRepository.findMaxAccountNumber()).willReturn(Optional.of("1000000250"));
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository);
+
+        //when
+        String first = allocator.nextAccountNumber();
+
+        //then
+        assertEquals("1000000251", first);
+    }
+
+    @Test
+    @DisplayName("블록 하나를 다 쓰기 전에는 Redis 를 다시 호출하지 않는다")
+    void oneRoundTripPerBlock() {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository);
+
+        //when
+        for (int i = 0; i < 250; i++) {
+            allocator.nextAccountNumber();
+        }
+
+        //then
+        verify(sequence, times(3)).addAndGet(100L);
+        verify(accountRepository, times(1)).findMaxAccountNumber();
+    }
+
+    @ParameterizedTest(name = "threads={0}")
+    @ValueSource(ints = {1, 8, 64})
+    @DisplayName("여러 노드, 여러 스레드에서 동시에 발급해도 번호가 겹치지 않고, 예약한 블록 밖의 번호는 쓰지 않는다")
+    void noCollisionUnderConcurrency(int threads) throws Exception {
+        //given
+        AccountNumberAllocator nodeA = new AccountNumberAllocator(redissonClient, accountRepository);
+        AccountNumberAllocator nodeB = new AccountNumberAllocator(redissonClient, accountRepository);
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < threads; i++) {
+            AccountNumberAllocator allocator = i % 2 == 0 ? nodeA : nodeB;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ACCOUNTS_PER_THREAD; j++) {
+                    issued.add(allocator.nextAccountNumber());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(threads * ACCOUNTS_PER_THREAD, issued.size());
+        long reserved = redisValue.get();
+        assertTrue(issued.stream().allMatch(number ->
+                Long.parseLong(number) - AccountNumberAllocator.ACCOUNT_NUMBER_BASE < reserved));
+        // 노드마다 다 못 쓴 블록이 하나까지만 남는다.
+        assertTrue(reserved - issued.size() < 2 * BLOCK_SIZE);
+    }
+}
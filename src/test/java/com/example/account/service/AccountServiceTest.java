@@ -3,26 +3,34 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummary;
+import com.example.account.dto.DailySummary;
 import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountDailySummaryRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
 import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -34,6 +42,24 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @Mock
+    private AccountDailySummaryRepository accountDailySummaryRepository;
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
+    @Spy
+    private ReadReplicaRouter readReplicaRouter = new ReadReplicaRouter(null, null, new SimpleMeterRegistry(), false, 1000);
+
     @InjectMocks
     private AccountService accountService;
 
@@ -43,13 +69,12 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(12L)
                 .name("pobi").build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(AccountUser.builder()
-                        .name("Pobi").build()));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(user)
-                        .accountNumber("100000012").build()));
+        given(accountUserRepository.incrementAccountCount(1L, 10))
+                .willReturn(1);
+        given(accountUserRepository.getById(1L))
+                .willReturn(user);
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000013");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -64,7 +89,7 @@ class AccountServiceTest {
         //then
         verify(accountRepository, times(1)).save(captor.capture());
         assertEquals(12L, accountDto.getUserId());
-        assertEquals("100000013", captor.getValue().getAccountNumber());
+        assertEquals("1000000013", captor.getValue().getAccountNumber());
     }
 
     @Test
@@ -74,16 +99,33 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(15L)
                 .name("Pobi").build();
+        given(accountUserRepository.incrementAccountCount(1L, 10))
+                .willReturn(0);
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.countByAccountUser(anyString()))
-                .willReturn(10);
 
         //when
         AccountException exception = assertThrows(AccountException.class,
                 () -> accountService.createAccount(1L, 1000L));
         //then
         assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, exception.getErrorCode());
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("계좌 수를 늘리지 못했는데 사용자도 없으면 USER_NOT_FOUND")
+    void createAccount_userNotFound() {
+        //given
+        given(accountUserRepository.incrementAccountCount(1L, 10))
+                .willReturn(0);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.empty());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.createAccount(1L, 1000L));
+        //then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
     }
 
         @Test
@@ -135,6 +177,92 @@ class AccountServiceTest {
 
 
     }
+
+    @Test
+    @DisplayName("잔액을 나눠 담은 계좌는 칸 잔액까지 비어야 해지할 수 있다.")
+    void deleteAccountFailed_slotBalanceNotEmpty() {
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(pobi));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .id(7L)
+                        .accountUser(pobi)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(0L)
+                        .balanceSlots(4)
+                        .accountNumber("1000000012").build()));
+        given(balanceSlotService.sumBalance(7L)).willReturn(100L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(12L, "1000000012"));
+
+        //then
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("잔액 엔진을 켜면 늦게 반영되는 DB 잔액 대신 엔진의 메모리 잔액으로 확인한다.")
+    void deleteAccount_balanceCheckedByEngine() {
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(pobi));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(pobi)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(100L)
+                        .accountNumber("1000000012").build()));
+        given(balanceEngine.isEnabled()).willReturn(true);
+
+        //when
+        AccountDto accountDto = accountService.deleteAccount(12L, "1000000012");
+
+        //then
+        verify(balanceEngine).unregister("1000000012");
+        verify(balanceSlotService, never()).sumBalance(any());
+        assertEquals("1000000012", accountDto.getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("잔액 칸 수는 늘리기만 할 수 있다.")
+    void splitBalance() {
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(pobi));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(7L)
+                        .accountUser(pobi)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(1000L)
+                        .balanceSlots(4)
+                        .accountNumber("1000000012").build()));
+
+        ArgumentCaptor<AccountSummary> captor = ArgumentCaptor.forClass(AccountSummary.class);
+
+        //when
+        accountService.splitBalance(12L, "1000000012", 8);
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.splitBalance(12L, "1000000012", 2));
+
+        //then
+        verify(balanceSlotService).split(captor.capture(), eq(8));
+        assertEquals(7L, captor.getValue().getId());
+        assertEquals(12L, captor.getValue().getUserId());
+        assertEquals(ErrorCode.BALANCE_SLOTS_CANNOT_DECREASE, exception.getErrorCode());
+    }
+
     @Test
     void successGetAccountsByUserId() {
         //given
@@ -158,11 +286,10 @@ class AccountServiceTest {
                         .balance(3000L)
                         .build()
         );
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(pobi));
-        //then
-        given(accountRepository.findByAccountNumber(any()))
-                .willReturn(accounts);
+        given(accountRepository.findAccountDtosByUserId(anyLong()))
+                .willReturn(accounts.stream()
+                        .map(AccountDto::fromEntity)
+                        .collect(Collectors.toList()));
         //when
         List<AccountDto> accountDtos = accountService.getAccountsByUserId(1l);
 
@@ -183,10 +310,31 @@ class AccountServiceTest {
                     .willReturn(Optional.empty());
             //when
             AccountException exception = assertThrows(AccountException.class,
-                    () -> accountService.getAccountsByUserId(1L);
+                    () -> accountService.getAccountsByUserId(1L));
 
             //then
             assertEquals(ErrorCode.USER_NOT_FOUND,exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("캐시에 있는 계좌 목록은 DB 를 조회하지 않는다")
+    void getAccountsByUserId_cached() {
+        //given
+        given(accountCache.getAccountsByUserId(1L))
+                .willReturn(Optional.of(Arrays.asList(AccountDto.builder()
+                        .userId(1L)
+                        .accountNumber("1111111111")
+                        .balance(1000L)
+                        .build())));
+
+        //when
+        List<AccountDto> accountDtos = accountService.getAccountsByUserId(1L);
+
+        //then
+        assertEquals(1, accountDtos.size());
+        assertEquals("1111111111", accountDtos.get(0).getAccountNumber());
+        verify(accountUserRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).findAccountDtosByUserId(anyLong());
 
 
 
@@ -197,4 +345,35 @@ class AccountServiceTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("일별 요약은 요약 테이블에서만 읽고, 1년이 넘는 기간은 조회할 수 없다")
+    void getDailySummaries() {
+        //given
+        LocalDate from = LocalDate.of(2022, 6, 1);
+        given(accountCache.getAccount("1000000012"))
+                .willReturn(Optional.of(AccountSummary.builder()
+                        .id(7L)
+                        .userId(12L)
+                        .accountNumber("1000000012")
+                        .build()));
+        given(accountDailySummaryRepository.findDailySummaries(7L, from, from.plusDays(30)))
+                .willReturn(Arrays.asList(DailySummary.builder()
+                        .date(from)
+                        .debitAmount(3000L)
+                        .creditAmount(1000L)
+                        .transactionCount(3L)
+                        .closingBalance(8000L)
+                        .build()));
+
+        //when
+        List<DailySummary> summaries = accountService.getDailySummaries("1000000012", from, from.plusDays(30));
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.getDailySummaries("1000000012", from, from.plusYears(1).plusDays(1)));
+
+        //then
+        assertEquals(1, summaries.size());
+        assertEquals(8000L, summaries.get(0).getClosingBalance());
+        assertEquals(ErrorCode.INVALID_DATE_RANGE, exception.getErrorCode());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 샤드 스레드가 커밋된 데이터를 읽고 쓰므로 테스트 트랜잭션 없이 실행한다.
+ */
+@DataJpaTest
+@Import(TransactionLedger.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BalanceEngineTest {
+    @MockBean
+    private AccountCache accountCache;
+
+    @MockBean
+    private DailySummaryAggregator dailySummaryAggregator;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionLedger transactionLedger;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    @DisplayName("메모리에서 차감하고 TransactionService 와 같은 오류 코드로 실패하며, 종료할 때 DB 에 반영한다")
+    void useBalanceAndSnapshotOnStop() throws Exception {
+        //given
+        Account account = saveAccount("2000000001", 10_000L);
+        BalanceEngine engine = engine(50);
+        engine.start();
+
+        //when
+        TransactionDto first = engine.useBalance(1L, "2000000001", 3_000L);
+        TransactionDto second = engine.useBalance(1L, "2000000001", 2_000L);
+        AccountException exceed = assertThrows(AccountException.class,
+                () -> engine.useBalance(1L, "2000000001", 6_000L));
+        AccountException unMatch = assertThrows(AccountException.class,
+                () -> engine.useBalance(2L, "2000000001", 1_000L));
+        AccountException noUser = assertThrows(AccountException.class,
+                () -> engine.useBalance(999L, "2000000001", 1_000L));
+        AccountException noAccount = assertThrows(AccountException.class,
+                () -> engine.useBalance(1L, "2999999999", 1_000L));
+        engine.stop();
+
+        //then
+        assertEquals(7_000L, first.getBalanceSnapShot());
+        assertEquals(5_000L, second.getBalanceSnapShot());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exceed.getErrorCode());
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, unMatch.getErrorCode());
+        assertEquals(ErrorCode.USER_NOT_FOUND, noUser.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, noAccount.getErrorCode());
+        assertEquals(5_000L, accountRepository.findById(account.getId()).get().getBalance());
+        assertTrue(transactionRepository.findByTransactionId(first.getTransactionId()).isPresent());
+        assertTrue(transactionRepository.findByTransactionId(second.getTransactionId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("스냅샷 전에 죽어도 다시 시작하면 저널에 남은 잔액과 거래 내역을 DB 에 반영한다")
+    void recoverJournalAfterCrash() throws Exception {
+        //given
+        Account account = saveAccount("2000000002", 10_000L);
+        BalanceEngine crashed = engine(3_600_000L); // 스냅샷이 돌지 않게 한다.
+        crashed.start();
+        TransactionDto used = crashed.useBalance(1L, "2000000002", 4_000L);
+        assertEquals(10_000L, accountRepository.findById(account.getId()).get().getBalance());
+
+        //when
+        BalanceEngine restarted = engine(50);
+        restarted.start();
+
+        //then
+        assertEquals(6_000L, accountRepository.findById(account.getId()).get().getBalance());
+        assertTrue(transactionRepository.findByTransactionId(used.getTransactionId()).isPresent());
+        assertEquals(2_000L, restarted.useBalance(1L, "2000000002", 4_000L).getBalanceSnapShot());
+        restarted.stop();
+    }
+
+    @Test
+    @DisplayName("취소는 잔액을 더하고, 같은 원거래를 다시 취소하면 스냅샷 전이라도 거절한다")
+    void cancelBalanceOnce() throws Exception {
+        //given
+        Account account = saveAccount("2000000003", 10_000L);
+        BalanceEngine engine = engine(3_600_000L);
+        engine.start();
+        TransactionDto used = engine.useBalance(1L, "2000000003", 4_000L);
+
+        //when
+        TransactionDto canceled = engine.cancelBalance(used.getTransactionId(),
+                used.getTransactionId() + "-C", "2000000003", 4_000L);
+        AccountException again = assertThrows(AccountException.class,
+                () -> engine.cancelBalance(used.getTransactionId(),
+                        used.getTransactionId() + "-C", "2000000003", 4_000L));
+        engine.stop();
+
+        //then
+        assertEquals(10_000L, canceled.getBalanceSnapShot());
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELED, again.getErrorCode());
+        assertEquals(10_000L, accountRepository.findById(account.getId()).get().getBalance());
+        assertTrue(transactionRepository.existsByTransactionId(used.getTransactionId() + "-C"));
+    }
+
+    @Test
+    @DisplayName("이체는 두 계좌에 반영하고, 입금 계좌가 해지됐으면 출금을 되돌린다")
+    void transferBalanceAndRefund() throws Exception {
+        //given
+        Account from = saveAccount("2000000004", 10_000L);
+        Account to = saveAccount("2000000005", 0L);
+        BalanceEngine engine = engine(50);
+        engine.start();
+
+        //when
+        TransactionDto transferred = engine.transferBalance(1L, "2000000004", "2000000005", 3_000L, "tr-1", "tr-1-I");
+        engine.useBalance(1L, "2000000005", 3_000L);
+        engine.unregister("2000000005");
+        AccountException unregistered = assertThrows(AccountException.class,
+                () -> engine.transferBalance(1L, "2000000004", "2000000005", 1_000L, "tr-2", "tr-2-I"));
+        engine.stop();
+
+        //then
+        assertEquals(7_000L, transferred.getBalanceSnapShot());
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, unregistered.getErrorCode());
+        assertEquals(7_000L, accountRepository.findById(from.getId()).get().getBalance());
+        assertEquals(0L, accountRepository.findById(to.getId()).get().getBalance());
+        assertTrue(transactionRepository.existsByTransactionId("tr-1-I"));
+        assertTrue(transactionRepository.existsByTransactionId("tr-2-R"));
+    }
+
+    @Test
+    @DisplayName("fsync 가 실패해도 메모리와 저널에 반영된 차감은 성공으로 응답하고 DB 에 반영한다")
+    void completeAppliedCommandsWhenForceFails() throws Exception {
+        //given
+        Account account = saveAccount("2000000006", 10_000L);
+        BalanceEngine engine = new BalanceEngine(accountRepository, accountUserRepository, transactionLedger,
+                accountCache, new SnowflakeTransactionIdGenerator(0), transactionManager,
+                new SimpleMeterRegistry(), true, 2, 1024, journalDirectory.toString(), 1, true, 1000, 50) {
+            @Override
+            TransactionJournal openJournal(Path file) throws IOException {
+                return new TransactionJournal(file, 1024 * 1024, false) {
+                    @Override
+                    public synchronized void force() {
+                        throw new UncheckedIOException(new IOException("disk failure"));
+                    }
+                };
+            }
+        };
+        engine.start();
+
+        //when
+        TransactionDto used = engine.useBalance(1L, "2000000006", 3_000L);
+        TransactionDto next = engine.useBalance(1L, "2000000006", 2_000L);
+        engine.stop();
+
+        //then
+        assertEquals(7_000L, used.getBalanceSnapShot());
+        assertEquals(5_000L, next.getBalanceSnapShot());
+        assertEquals(5_000L, accountRepository.findById(account.getId()).get().getBalance());
+        assertTrue(transactionRepository.findByTransactionId(used.getTransactionId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("해지는 DB 가 아닌 메모리 잔액으로 확인하고, 해지 트랜잭션이 롤백되면 다시 사용 중으로 되돌린다")
+    void unregisterWithInMemoryBalance() throws Exception {
+        //given
+        saveAccount("2000000007", 5_000L);
+        saveAccount("2000000008", 5_000L);
+        saveAccount("2000000009", 5_000L);
+        BalanceEngine engine = engine(3_600_000L); // DB 잔액이 바뀌지 않게 한다.
+        engine.start();
+        engine.useBalance(1L, "2000000007", 2_000L);
+        engine.useBalance(1L, "2000000008", 5_000L);
+        TransactionDto used = engine.useBalance(1L, "2000000009", 5_000L);
+
+        //when
+        AccountException notEmpty = assertThrows(AccountException.class,
+                () -> engine.unregister("2000000007"));
+        engine.unregister("2000000008");
+        AccountException unregistered = assertThrows(AccountException.class,
+                () -> engine.cancelBalance("tx-2000000008", "tx-2000000008-C", "2000000008", 1_000L));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            engine.unregister("2000000009");
+            status.setRollbackOnly();
+        });
+        TransactionDto canceled = engine.cancelBalance(used.getTransactionId(),
+                used.getTransactionId() + "-C", "2000000009", 5_000L);
+        TransactionDto stillInUse = engine.useBalance(1L, "2000000007", 1_000L);
+        engine.stop();
+
+        //then
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, notEmpty.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, unregistered.getErrorCode());
+        assertEquals(5_000L, canceled.getBalanceSnapShot());
+        assertEquals(2_000L, stillInUse.getBalanceSnapShot());
+    }
+
+    private BalanceEngine engine(long snapshotIntervalMillis) {
+        return new BalanceEngine(accountRepository, accountUserRepository, transactionLedger,
+                accountCache, new SnowflakeTransactionIdGenerator(0), transactionManager, new SimpleMeterRegistry(),
+                true, 2, 1024, journalDirectory.toString(), 1, false, 1000, snapshotIntervalMillis);
+    }
+
+    private Account saveAccount(String accountNumber, long balance) {
+        return accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(1L).get()) // data.sql
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .registeredAt(LocalDateTime.now())
+                .build());
+    }
+}
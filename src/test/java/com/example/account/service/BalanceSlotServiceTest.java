@@ -0,0 +1,202 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummary;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBalanceSlotRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.SlotSelection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 잔액을 칸에 나눠 담은 계좌에서 여러 스레드가 동시에 잔액을 다 쓸 때까지 사용해도
+ * 차감한 금액과 남은 잔액(칸 합계)의 합이 처음 잔액과 같아야 한다.
+ * 여러 트랜잭션이 동시에 커밋하므로 테스트 트랜잭션 없이 실행한다.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.show_sql=false")
+@Import(TransactionLedger.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BalanceSlotServiceTest {
+    private static final long INITIAL_BALANCE = 50_000L;
+    private static final int SLOTS = 4;
+    private static final int THREADS = 8;
+    private static final int USES = 800;
+
+    @MockBean
+    private DailySummaryAggregator dailySummaryAggregator;
+
+    @Autowired
+    private TransactionLedger transactionLedger;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BalanceSlotService balanceSlotService;
+
+    @Test
+    @DisplayName("칸을 빌리고 다시 나누면서 잔액을 다 쓸 때까지 차감해도 합계가 맞다")
+    void useSplitBalanceConcurrently() throws Exception {
+        //given
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(2L).get()) // data.sql
+                .accountNumber("5000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(INITIAL_BALANCE)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        TransactionService transactionService = transactionService();
+        balanceSlotService.split(AccountSummary.fromEntity(account), SLOTS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicLong used = new AtomicLong();
+
+        //when
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < USES; i++) {
+            results.add(executor.submit(() -> {
+                long amount = 10L + ThreadLocalRandom.current().nextInt(200);
+                try {
+                    transactionService.useBalance(2L, "5000000000", amount);
+                    succeeded.incrementAndGet();
+                    used.addAndGet(amount);
+                } catch (AccountException e) {
+                    assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        //then
+        AccountDto accountDto = accountRepository.findAccountDtosByUserId(2L).stream()
+                .filter(dto -> dto.getAccountNumber().equals("5000000000"))
+                .findFirst().get();
+        assertEquals(INITIAL_BALANCE, used.get() + accountDto.getBalance());
+        assertTrue(accountDto.getBalance() < 210L * SLOTS, "left " + accountDto.getBalance());
+        assertEquals(SLOTS - 1, accountBalanceSlotRepository.findByAccountIdOrderBySlotNo(account.getId()).size());
+        assertTrue(accountBalanceSlotRepository.findByAccountIdOrderBySlotNo(account.getId()).stream()
+                .allMatch(slot -> slot.getBalance() >= 0));
+        assertEquals(succeeded.get(), transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getAccount().getId().equals(account.getId()))
+                .count());
+    }
+
+    @Test
+    @DisplayName("칸 나누기가 꺼져 있으면 계좌를 나누지 않는다")
+    void splitRejectedWhenDisabled() throws Exception {
+        assertSplitRejected("5100000001", balanceSlotService(false, false));
+    }
+
+    @Test
+    @DisplayName("BalanceEngine 을 켜면 계좌를 나누지 않는다")
+    void splitRejectedWhenEngineEnabled() throws Exception {
+        assertSplitRejected("5100000002", balanceSlotService(true, true));
+    }
+
+    private void assertSplitRejected(String accountNumber, BalanceSlotService service) {
+        //given
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(2L).get()) // data.sql
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(INITIAL_BALANCE)
+                .registeredAt(LocalDateTime.now())
+                .build());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> service.split(AccountSummary.fromEntity(account), SLOTS));
+
+        //then
+        assertEquals(ErrorCode.BALANCE_SLOT_UNAVAILABLE, exception.getErrorCode());
+        assertTrue(accountBalanceSlotRepository.findByAccountIdOrderBySlotNo(account.getId()).isEmpty());
+        Account reloaded = accountRepository.findById(account.getId()).get();
+        assertEquals(0, reloaded.getBalanceSlots());
+        assertEquals(INITIAL_BALANCE, reloaded.getBalance());
+    }
+
+    /**
+     * Redis 락은 항상 잡히는 것으로 두고, 캐시는 비어 있는 것으로 둔다.
+     */
+    private TransactionService transactionService() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LockService lockService = lockService(meterRegistry);
+        AccountCache accountCache = mock(AccountCache.class);
+
+        balanceSlotService = new BalanceSlotService(accountRepository, accountBalanceSlotRepository, accountCache,
+                lockService, transactionManager, meterRegistry, true, false, SlotSelection.RANDOM);
+
+        return new TransactionService(transactionLedger, transactionRepository, accountUserRepository,
+                accountRepository,
+                new BalanceUpdateExecutor(transactionManager, meterRegistry, ConcurrencyMode.LOCK, 5, 1, 20),
+                lockService, accountCache, mock(BalanceEngine.class), mock(RecentTransactionCache.class),
+                mock(FailedTransactionRecorder.class), dailySummaryAggregator,
+                new SnowflakeTransactionIdGenerator(0), balanceSlotService,
+                new ReadReplicaRouter(null, transactionManager, meterRegistry, false, 1000));
+    }
+
+    private BalanceSlotService balanceSlotService(boolean enabled, boolean engineEnabled) throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new BalanceSlotService(accountRepository, accountBalanceSlotRepository, mock(AccountCache.class),
+                lockService(meterRegistry), transactionManager, meterRegistry, enabled, engineEnabled,
+                SlotSelection.RANDOM);
+    }
+
+    private LockService lockService(SimpleMeterRegistry meterRegistry) throws InterruptedException {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock rLock = mock(RLock.class);
+        given(redissonClient.getLock(anyString())).willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+        return new LockService(redissonClient, meterRegistry, 5_000, 30_000, 1024);
+    }
+}
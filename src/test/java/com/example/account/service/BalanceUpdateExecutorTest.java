@@ -0,0 +1,81 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceUpdateExecutorTest {
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("버전 충돌이 나면 다시 시도하고 재시도 횟수를 기록한다")
+    void retryOnOptimisticLockFailure() {
+        //given
+        BalanceUpdateExecutor executor = new BalanceUpdateExecutor(
+                transactionManager, meterRegistry, ConcurrencyMode.OPTIMISTIC, 5, 1, 2);
+        AtomicInteger calls = new AtomicInteger();
+
+        //when
+        String result = executor.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "done";
+        });
+
+        //then
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.counter("account.balance.optimistic.retry").count());
+    }
+
+    @Test
+    @DisplayName("최대 시도 횟수를 넘기면 ACCOUNT_TRANSACTION_LOCK 으로 실패한다")
+    void giveUpAfterMaxAttempts() {
+        //given
+        BalanceUpdateExecutor executor = new BalanceUpdateExecutor(
+                transactionManager, meterRegistry, ConcurrencyMode.OPTIMISTIC, 3, 1, 2);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> executor.execute(() -> {
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(1.0, meterRegistry.counter("account.balance.optimistic.exhausted").count());
+    }
+
+    @Test
+    @DisplayName("LOCK 모드에서는 재시도하지 않는다")
+    void noRetryInLockMode() {
+        //given
+        BalanceUpdateExecutor executor = new BalanceUpdateExecutor(
+                transactionManager, meterRegistry, ConcurrencyMode.LOCK, 5, 1, 2);
+
+        //when
+        //then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> executor.execute(() -> {
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+    }
+}
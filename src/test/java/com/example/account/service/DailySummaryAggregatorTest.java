@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.DailySummary;
+import com.example.account.repository.AccountDailySummaryRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class DailySummaryAggregatorTest {
+    private static final LocalDateTime DAY1 = LocalDateTime.of(2022, 6, 1, 9, 0);
+    private static final LocalDateTime DAY2 = DAY1.plusDays(1);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountDailySummaryRepository accountDailySummaryRepository;
+
+    @Test
+    @DisplayName("계좌/날짜별로 합쳐서 더하고, 마감 잔액은 그날 마지막 거래 뒤의 잔액이다")
+    void aggregateByAccountAndDate() {
+        //given
+        Account account = saveAccount("5000000001");
+        DailySummaryAggregator aggregator = new DailySummaryAggregator(accountDailySummaryRepository,
+                accountRepository);
+
+        //when
+        aggregator.add(Arrays.asList(
+                transaction(account, USE, S, 1000L, 9000L, DAY1),
+                transaction(account, USE, S, 3000L, 5000L, DAY1.plusHours(2)),
+                transaction(account, CANCEL, S, 1000L, 6000L, DAY1.plusHours(1)), // 늦게 도착한 거래
+                transaction(account, USE, F, 9000L, 5000L, DAY1.plusHours(2))));
+        aggregator.add(Arrays.asList(
+                transaction(account, CANCEL, S, 3000L, 8000L, DAY1.plusHours(3)),
+                transaction(account, USE, S, 500L, 7500L, DAY2)));
+        aggregator.add(Collections.singletonList(
+                transaction(account, USE, S, 100L, 9900L, DAY1.minusHours(1)))); // 이미 더한 날에 늦게 도착
+
+        //then
+        List<DailySummary> summaries = accountDailySummaryRepository.findDailySummaries(
+                account.getId(), LocalDate.of(2022, 6, 1), LocalDate.of(2022, 6, 30));
+        assertEquals(2, summaries.size());
+        assertEquals(4100L, summaries.get(0).getDebitAmount());
+        assertEquals(4000L, summaries.get(0).getCreditAmount());
+        assertEquals(5L, summaries.get(0).getTransactionCount());
+        assertEquals(8000L, summaries.get(0).getClosingBalance());
+        assertEquals(LocalDate.of(2022, 6, 2), summaries.get(1).getDate());
+        assertEquals(7500L, summaries.get(1).getClosingBalance());
+    }
+
+    @Test
+    @DisplayName("저널의 거래 내역도 같은 기준으로 더한다")
+    void aggregateJournalEntries() {
+        //given
+        Account account = saveAccount("5000000002");
+        DailySummaryAggregator aggregator = new DailySummaryAggregator(accountDailySummaryRepository,
+                accountRepository);
+
+        //when
+        aggregator.addEntries(Arrays.asList(
+                entry(account, USE, 1000L, 9000L, DAY1),
+                entry(account, TRANSFER_IN, 2000L, 11000L, DAY1.plusHours(1))));
+
+        //then
+        List<DailySummary> summaries = accountDailySummaryRepository.findDailySummaries(
+                account.getId(), LocalDate.of(2022, 6, 1), LocalDate.of(2022, 6, 30));
+        assertEquals(1, summaries.size());
+        assertEquals(1000L, summaries.get(0).getDebitAmount());
+        assertEquals(2000L, summaries.get(0).getCreditAmount());
+        assertEquals(2L, summaries.get(0).getTransactionCount());
+        assertEquals(11000L, summaries.get(0).getClosingBalance());
+    }
+
+    private Transaction transaction(Account account, TransactionType transactionType,
+                                    TransactionResultType transactionResultType,
+                                    long amount, long balanceSnapShot, LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapShot(balanceSnapShot)
+                .transactionId("summary-" + transactedAt)
+                .transactedAt(transactedAt)
+                .build();
+    }
+
+    private TransactionJournal.Entry entry(Account account, TransactionType transactionType,
+                                           long amount, long balanceSnapShot, LocalDateTime transactedAt) {
+        return new TransactionJournal.Entry(account.getId(), transactionType, S, amount, balanceSnapShot,
+                transactedAt.toInstant(ZoneOffset.UTC).toEpochMilli(), "summary-" + transactedAt);
+    }
+
+    private Account saveAccount(String accountNumber) {
+        return accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(1L).get()) // data.sql
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10_000L)
+                .registeredAt(DAY1)
+                .build());
+    }
+}
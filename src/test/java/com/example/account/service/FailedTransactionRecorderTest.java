@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.OverflowPolicy;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 백그라운드 스레드가 커밋된 데이터를 읽고 쓰므로 테스트 트랜잭션 없이 실행한다.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FailedTransactionRecorderTest {
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("실패 거래를 F 로 저장하고, 없는 계좌에 대한 실패는 남기지 않는다")
+    void saveFailedTransactions() throws Exception {
+        //given
+        Account account = saveAccount("3000000001", 1_000L);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FailedTransactionRecorder recorder = recorder(meterRegistry, 100, OverflowPolicy.DROP);
+        recorder.start();
+
+        //when
+        recorder.record(TransactionType.USE, "3000000001", 5_000L);
+        recorder.record(TransactionType.CANCEL, "3000000001", 300L);
+        recorder.record(TransactionType.USE, "3999999999", 100L);
+        recorder.stop();
+
+        //then
+        List<Transaction> failed = transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getAccount().getId().equals(account.getId()))
+                .collect(Collectors.toList());
+        assertEquals(2, failed.size());
+        assertTrue(failed.stream().allMatch(transaction ->
+                transaction.getTransactionResultType() == TransactionResultType.F
+                        && transaction.getBalanceSnapShot() == 1_000L));
+        assertEquals(1_000L, accountRepository.findById(account.getId()).get().getBalance());
+        assertEquals(0, meterRegistry.get("account.failed_transaction.queue").gauge().value());
+    }
+
+    @Test
+    @DisplayName("큐가 가득 차면 요청을 막지 않고 버린 수를 센다")
+    void dropWhenQueueIsFull() {
+        //given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FailedTransactionRecorder recorder = recorder(meterRegistry, 1, OverflowPolicy.DROP);
+
+        //when
+        boolean first = recorder.record(TransactionType.USE, "3000000002", 100L);
+        boolean second = recorder.record(TransactionType.USE, "3000000002", 100L);
+
+        //then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(1, meterRegistry.get("account.failed_transaction.dropped")
+                .tag("reason", "overflow").counter().count());
+    }
+
+    private FailedTransactionRecorder recorder(SimpleMeterRegistry meterRegistry,
+                                               int queueCapacity, OverflowPolicy overflowPolicy) {
+        return new FailedTransactionRecorder(transactionRepository, accountRepository, transactionManager,
+                new SnowflakeTransactionIdGenerator(0), meterRegistry, queueCapacity, overflowPolicy, 10, 100, 10);
+    }
+
+    private Account saveAccount(String accountNumber, long balance) {
+        return accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(1L).get()) // data.sql
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .registeredAt(LocalDateTime.now())
+                .build());
+    }
+}
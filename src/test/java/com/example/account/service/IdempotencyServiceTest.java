@@ -0,0 +1,243 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RLock;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.Codec;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyServiceTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RMapCache<Object, Object> responses;
+
+    @Mock
+    private RLock rLock;
+
+    private final Map<Object, Object> stored = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        given(redissonClient.getMapCache(eq("IDEMPOTENCY"), any(Codec.class))).willReturn(responses);
+        given(responses.get(any())).willAnswer(invocation -> stored.get(invocation.getArgument(0)));
+        willAnswer(invocation -> stored.put(invocation.getArgument(0), invocation.getArgument(1)) == null)
+                .given(responses).fastPut(any(), any(), anyLong(), any());
+        given(responses.fastPutIfAbsent(any(), any())).willAnswer(invocation ->
+                stored.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        given(responses.fastRemove(any())).willAnswer(invocation ->
+                stored.remove(invocation.getArgument(0)) == null ? 0L : 1L);
+
+        given(redissonClient.getLock(anyString())).willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .willAnswer(invocation -> lock.tryLock(invocation.getArgument(0), TimeUnit.MILLISECONDS));
+        given(rLock.isHeldByCurrentThread()).willAnswer(invocation -> lock.isHeldByCurrentThread());
+        willAnswer(invocation -> {
+            lock.unlock();
+            return null;
+        }).given(rLock).unlock();
+
+        idempotencyService = new IdempotencyService(redissonClient,
+                new ObjectMapper().findAndRegisterModules(), 86400, 5000, 30000);
+    }
+
+    @Test
+    @DisplayName("같은 키로 다시 요청하면 다시 실행하지 않고 처음 응답을 돌려준다")
+    void replayStoredResponse() {
+        //given
+        AtomicInteger executions = new AtomicInteger();
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+
+        //when
+        UseBalance.Response first = idempotencyService.execute("use", "key-1", request,
+                UseBalance.Response.class, () -> response(executions.incrementAndGet()));
+        UseBalance.Response replay = idempotencyService.execute("use", "key-1", request,
+                UseBalance.Response.class, () -> response(executions.incrementAndGet()));
+
+        //then
+        assertEquals(1, executions.get());
+        assertEquals(first.getTransactionId(), replay.getTransactionId());
+        assertEquals(first.getTransactedAt(), replay.getTransactedAt());
+    }
+
+    @Test
+    @DisplayName("처리 중인 요청과 같은 키로 동시에 오면 기다렸다가 같은 응답을 받는다")
+    void concurrentDuplicatesRunOnce() throws Exception {
+        //given
+        int threads = 8;
+        AtomicInteger executions = new AtomicInteger();
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return idempotencyService.execute("use", "key-1", request,
+                        UseBalance.Response.class, () -> {
+                            sleep(50);
+                            return response(executions.incrementAndGet());
+                        });
+            }));
+        }
+        start.countDown();
+
+        //then
+        for (Future<?> future : futures) {
+            assertEquals("tx-1", ((UseBalance.Response) future.get()).getTransactionId());
+        }
+        executor.shutdown();
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("같은 키를 다른 요청 내용으로 쓰면 거절한다")
+    void rejectKeyReusedForDifferentRequest() {
+        //given
+        idempotencyService.execute("use", "key-1", new UseBalance.Request(1L, "1000000000", 1000L),
+                UseBalance.Response.class, () -> response(1));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute("use", "key-1",
+                        new UseBalance.Request(1L, "1000000000", 2000L),
+                        UseBalance.Response.class, () -> response(2)));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("응답 저장에 실패하면 같은 키로 다시 와도 실행하지 않고 거절한다")
+    void rejectRetryWhenResponseNotStored() {
+        //given
+        AtomicInteger executions = new AtomicInteger();
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+        willThrow(new RedisException("down"))
+                .given(responses).fastPut(any(), any(), anyLong(), any());
+        idempotencyService.execute("use", "key-1", request,
+                UseBalance.Response.class, () -> response(executions.incrementAndGet()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute("use", "key-1", request,
+                        UseBalance.Response.class, () -> response(executions.incrementAndGet())));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS, exception.getErrorCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("락 lease 가 끝나도 처리 중인 키는 다시 실행하지 않는다")
+    void rejectWhileInProgressAfterLeaseExpired() throws Exception {
+        //given
+        AtomicInteger executions = new AtomicInteger();
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //when
+        idempotencyService.execute("use", "key-1", request, UseBalance.Response.class, () -> {
+            executions.incrementAndGet();
+            // lease 가 끝나서 다른 요청도 락을 잡을 수 있다.
+            try {
+                given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            Future<?> retry = executor.submit(() -> idempotencyService.execute("use", "key-1", request,
+                    UseBalance.Response.class, () -> response(executions.incrementAndGet())));
+            ExecutionException exception = assertThrows(ExecutionException.class, retry::get);
+            assertEquals(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS,
+                    ((AccountException) exception.getCause()).getErrorCode());
+            return response(1);
+        });
+        executor.shutdown();
+
+        //then
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("실패한 요청은 처리 중 표시를 지워서 같은 키로 다시 시도할 수 있다")
+    void retryAfterFailedAction() {
+        //given
+        AtomicInteger executions = new AtomicInteger();
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+        assertThrows(AccountException.class, () -> idempotencyService.execute("use", "key-1", request,
+                UseBalance.Response.class, () -> {
+                    executions.incrementAndGet();
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+
+        //when
+        UseBalance.Response retry = idempotencyService.execute("use", "key-1", request,
+                UseBalance.Response.class, () -> response(executions.incrementAndGet()));
+
+        //then
+        assertEquals("tx-2", retry.getTransactionId());
+        assertEquals(2, executions.get());
+    }
+
+    private static UseBalance.Response response(int execution) {
+        return UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionResult(TransactionResultType.S)
+                .transactionId("tx-" + execution)
+                .amount(1000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LockServiceTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LockService lockService;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        given(redissonClient.getLock(anyString())).willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+        given(rLock.isHeldByCurrentThread()).willReturn(true);
+        lockService = new LockService(redissonClient, meterRegistry, 1000, 5000, 1024);
+    }
+
+    @Test
+    @DisplayName("같은 계좌에 동시에 잔액을 변경해도 유실되는 변경이 없다")
+    void noLostUpdateOnHotAccount() throws Exception {
+        //given
+        int threads = 16;
+        int updatesPerThread = 2_000;
+        long[] balance = {0L};
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < updatesPerThread; j++) {
+                    lockService.lock("1000000000");
+                    try {
+                        long read = balance[0];
+                        Thread.yield();
+                        balance[0] = read + 1;
+                    } finally {
+                        lockService.unlock("1000000000");
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        assertEquals((long) threads * updatesPerThread, balance[0]);
+    }
+
+    @Test
+    @DisplayName("다른 계좌의 락은 서로 기다리지 않는다")
+    void unrelatedAccountsDoNotBlock() throws Exception {
+        //given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        lockService.lock("1000000000");
+
+        try {
+            //when
+            Future<Boolean> other = executor.submit(() -> {
+                lockService.lock("1000000001");
+                lockService.unlock("1000000001");
+                return true;
+            });
+
+            //then
+            assertTrue(other.get(500, TimeUnit.MILLISECONDS));
+        } finally {
+            lockService.unlock("1000000000");
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("다른 서버가 락을 잡고 있으면 실패하고 로컬 락도 놓는다")
+    void failWhenRemoteLockBusy() throws Exception {
+        //given
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(false);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1000000000"));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(rLock, never()).unlock();
+        assertEquals(1.0, meterRegistry.get("account.lock.failure").tag("stage", "redis").counter().count());
+        assertEquals(1L, meterRegistry.get("account.lock.wait")
+                .tag("outcome", "ACCOUNT_TRANSACTION_LOCK").timer().count());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+        Future<?> retry = executor.submit(() -> {
+            lockService.lock("1000000000");
+            lockService.unlock("1000000000");
+        });
+        retry.get(500, TimeUnit.MILLISECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("계좌 번호 순서와 로컬 락 칸 순서가 엇갈려도 여러 계좌 락이 서로를 기다리며 멈추지 않는다")
+    void lockAllWithCrossedStripes() throws Exception {
+        //given
+        // 칸 2개 : 1000000020, 1000000024 -> 1번 칸 / 1000000021, 1000000023 -> 0번 칸
+        lockService = new LockService(redissonClient, meterRegistry, 1000, 5000, 2);
+        CountDownLatch firstInRedis = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        RLock slowLock = mock(RLock.class);
+        given(slowLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).willAnswer(invocation -> {
+            firstInRedis.countDown();
+            return releaseFirst.await(5, TimeUnit.SECONDS);
+        });
+        given(slowLock.isHeldByCurrentThread()).willReturn(true);
+        given(redissonClient.getLock("ACLK:1000000020")).willReturn(slowLock);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            //when
+            Future<?> first = executor.submit(() ->
+                    lockService.unlockAll(lockService.lockAll(List.of("1000000020", "1000000021"))));
+            assertTrue(firstInRedis.await(1, TimeUnit.SECONDS));
+            Future<?> second = executor.submit(() ->
+                    lockService.unlockAll(lockService.lockAll(List.of("1000000023", "1000000024"))));
+            Thread.sleep(200);
+            releaseFirst.countDown();
+
+            //then
+            first.get(3, TimeUnit.SECONDS);
+            second.get(3, TimeUnit.SECONDS);
+            assertEquals(0.0, meterRegistry.get("account.lock.failure").tag("stage", "local").counter().count());
+        } finally {
+            releaseFirst.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.account.service;
+
+import com.example.account.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.Codec;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 내장 H2 두 개를 주 DB / 복제 DB 로 두고, 각 DB 에 자기 이름을 넣어서 어느 쪽에서 읽었는지 본다.
+ * Redis 의 바뀐 사용자 표시(다른 노드가 남긴 것)는 mock 으로 둔다.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReadReplicaRouterTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RMapCache<Object, Object> remoteRecentWriters;
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWriteTransaction;
+    private ReadReplicaRouter readReplicaRouter;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        given(redissonClient.getMapCache(eq("REPLICA_RECENT_WRITERS"), any(Codec.class))).willReturn(remoteRecentWriters);
+        readReplicaRouter = new ReadReplicaRouter(redissonClient, transactionManager, new SimpleMeterRegistry(),
+                true, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    @DisplayName("읽기 전용 트랜잭션은 복제 DB, 쓰기 트랜잭션과 트랜잭션 밖은 주 DB 에서 실행된다")
+    void routeByReadOnly() {
+        assertEquals("replica", readReplicaRouter.read(this::databaseName));
+        assertEquals("primary", readWriteTransaction.execute(status -> databaseName()));
+        assertEquals("primary", databaseName());
+    }
+
+    @Test
+    @DisplayName("방금 바꾼 사용자는 주 DB 에서 읽고, 다른 사용자는 복제 DB 에서 읽는다")
+    void readYourWrites() {
+        //given
+        readWriteTransaction.executeWithoutResult(status -> readReplicaRouter.markWritten(12L));
+
+        //when
+        String writer = readReplicaRouter.readAfterWrite(12L, this::databaseName);
+        String other = readReplicaRouter.readAfterWrite(13L, this::databaseName);
+
+        //then
+        assertEquals("primary", writer);
+        assertEquals("replica", other);
+        assertFalse(ReadReplicaRouter.isPrimaryRequired());
+        verify(remoteRecentWriters).fastPut(eq("12"), eq(""), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("다른 노드에서 바꾼 사용자도 주 DB 에서 읽고, Redis 오류면 주 DB 에서 읽는다")
+    void readYourWritesAcrossNodes() {
+        //given
+        given(remoteRecentWriters.containsKey("14")).willReturn(true);
+        given(remoteRecentWriters.containsKey("15")).willThrow(new RedisException("down"));
+
+        //when
+        String otherNodeWriter = readReplicaRouter.readAfterWrite(14L, this::databaseName);
+        String unknown = readReplicaRouter.readAfterWrite(15L, this::databaseName);
+
+        //then
+        assertEquals("primary", otherNodeWriter);
+        assertEquals("primary", unknown);
+    }
+
+    @Test
+    @DisplayName("복제 DB 에서 읽는 사이에 바뀐 사용자가 되면 주 DB 에서 다시 읽는다")
+    void rereadFromPrimaryWhenWrittenDuringReplicaRead() {
+        //given
+        given(remoteRecentWriters.containsKey("16")).willReturn(false, true);
+
+        //when
+        String name = readReplicaRouter.readAfterWrite(16L, this::databaseName);
+
+        //then
+        assertEquals("primary", name);
+    }
+
+    @Test
+    @DisplayName("복제 DB 에 아직 없는 행은 주 DB 에서 다시 찾는다")
+    void readOrPrimaryOnReplicaMiss() {
+        //given
+        jdbcTemplate.update("insert into node(name) values ('written')");
+
+        //when
+        Optional<String> found = readReplicaRouter.readOrPrimary(() -> find("written"));
+        Optional<String> missing = readReplicaRouter.readOrPrimary(() -> find("unknown"));
+
+        //then
+        assertEquals("written", found.get());
+        assertFalse(missing.isPresent());
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("select name from node order by id limit 1", String.class);
+    }
+
+    private Optional<String> find(String name) {
+        List<String> names = jdbcTemplate.queryForList("select name from node where name = ?", String.class, name);
+        return names.stream().findFirst();
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table node(id bigint auto_increment primary key, name varchar(20))");
+        jdbcTemplate.update("insert into node(name) values (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("16자리 hex 이고, 같은 ms 에 순번을 다 쓰거나 시계가 뒤로 가도 문자열 순서가 증가한다")
+    void monotonicFixedLengthIds() {
+        //given
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(5, clock::get);
+
+        //when
+        String previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) { // 한 ms 의 순번(4096)보다 많이
+            String next = generator.nextId();
+
+            //then
+            assertEquals(16, next.length());
+            assertTrue(next.compareTo(previous) > 0, previous + " -> " + next);
+            previous = next;
+        }
+        clock.set(NOW - 1_000); // 시계가 뒤로 간 경우
+        assertTrue(generator.nextId().compareTo(previous) > 0);
+        assertEquals(5, (generator.nextLong() >>> 12) & 0x3FF);
+    }
+
+    @Test
+    @DisplayName("노드 id 는 0 ~ 1023")
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(-1));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.account.service;
+
+import com.example.account.config.TransactionIdGeneratorConfig;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.QueryTransactionPage;
+import com.example.account.type.AccountStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 조회 요청 하나가 실행하는 SQL 수 (Hibernate statistics)
+ * 계좌/거래 수가 늘어나도 SQL 수가 늘어나지 않아야 한다. (N+1 없음)
+ */
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "account.transaction-id.node-id=0"})
+@Import({AccountService.class, TransactionService.class, TransactionIdGeneratorConfig.class,
+        ReadReplicaRouter.class, SimpleMeterRegistry.class})
+class StatementCountTest {
+    private static final int ACCOUNTS = 5;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 10;
+
+    @MockBean
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @MockBean
+    private AccountCache accountCache;
+
+    @MockBean
+    private TransactionLedger transactionLedger;
+
+    @MockBean
+    private BalanceUpdateExecutor balanceUpdateExecutor;
+
+    @MockBean
+    private LockService lockService;
+
+    @MockBean
+    private BalanceEngine balanceEngine;
+
+    @MockBean
+    private RecentTransactionCache recentTransactionCache;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @MockBean
+    private DailySummaryAggregator dailySummaryAggregator;
+
+    @MockBean
+    private BalanceSlotService balanceSlotService;
+
+    @MockBean
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String transactionId;
+
+    @BeforeEach
+    void setUp() {
+        AccountUser user = entityManager.find(AccountUser.class, 1L); // data.sql
+        LocalDateTime base = LocalDateTime.of(2022, 6, 1, 12, 0);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = entityManager.persist(Account.builder()
+                    .accountUser(user)
+                    .accountNumber("100000000" + i)
+                    .accountStatus(AccountStatus.IN_USE)
+                    .balance(10000L)
+                    .registeredAt(base)
+                    .build());
+            for (int j = 0; j < TRANSACTIONS_PER_ACCOUNT; j++) {
+                transactionId = "tx-" + i + "-" + j;
+                entityManager.persist(Transaction.builder()
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .account(account)
+                        .amount(100L)
+                        .balanceSnapShot(9900L)
+                        .transactionId(transactionId)
+                        .transactedAt(base.plusMinutes(j))
+                        .build());
+            }
+        }
+        // 조회가 영속성 컨텍스트에 남은 엔티티를 쓰지 않도록 비운다.
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("사용자 계좌 목록 : DTO 조회 한 번")
+    void getAccountsByUserId() {
+        List<AccountDto> accounts = accountService.getAccountsByUserId(1L);
+
+        assertEquals(ACCOUNTS, accounts.size());
+        assertEquals(1L, accounts.get(0).getUserId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("거래 확인 : 거래와 계좌를 fetch join 으로 한 번에")
+    void queryTransaction() {
+        assertEquals("1000000004", transactionService.queryTransaction(transactionId).getAccountNumber());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("계좌 거래 목록 : 계좌 조회 + 페이지 조회 (페이지 크기와 무관)")
+    void queryTransactions() {
+        QueryTransactionPage page = transactionService.queryTransactions("1000000002", null, TRANSACTIONS_PER_ACCOUNT);
+
+        assertEquals(TRANSACTIONS_PER_ACCOUNT, page.getTransactions().size());
+        page.getTransactions().forEach(transaction ->
+                assertEquals("1000000002", transaction.getAccountNumber()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class TransactionExporterTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2022, 6, 1, 0, 0);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private TransactionExporter transactionExporter;
+
+    @BeforeEach
+    void setUp() {
+        transactionExporter = new TransactionExporter(
+                transactionRepository, accountRepository, transactionManager, objectMapper);
+
+        Account account = saveAccount("4000000001");
+        Account other = saveAccount("4000000002");
+        saveTransaction(account, "tx-3", BASE.plusHours(3));
+        saveTransaction(account, "tx-1", BASE.plusHours(1));
+        saveTransaction(account, "tx-2", BASE.plusHours(2));
+        saveTransaction(other, "tx-other", BASE.plusHours(2));
+    }
+
+    @Test
+    @DisplayName("CSV - 헤더 다음에 [from, to) 거래를 오래된 순으로 쓴다")
+    void exportCsv() throws Exception {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        long count = transactionExporter.export("4000000001",
+                BASE.plusHours(1), BASE.plusHours(3), ExportFormat.CSV, out);
+
+        //then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertEquals("transactionId,accountNumber,transactionType,transactionResult,amount,transactedAt", lines[0]);
+        assertEquals("tx-1,4000000001,USE,S,1000," + BASE.plusHours(1), lines[1]);
+        assertTrue(lines[2].startsWith("tx-2,"));
+    }
+
+    @Test
+    @DisplayName("NDJSON - 한 줄에 거래 하나씩 쓰고, 없는 계좌면 아무것도 쓰지 않고 실패한다")
+    void exportNdjson() throws Exception {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        transactionExporter.export("4000000001",
+                BASE, BASE.plusDays(1), ExportFormat.NDJSON, out);
+        ByteArrayOutputStream notFoundOut = new ByteArrayOutputStream();
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionExporter.export("4999999999",
+                        BASE, BASE.plusDays(1), ExportFormat.NDJSON, notFoundOut));
+
+        //then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("tx-1", first.get("transactionId").asText());
+        assertEquals("4000000001", first.get("accountNumber").asText());
+        assertEquals("tx-3", objectMapper.readTree(lines[2]).get("transactionId").asText());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+        assertEquals(0, notFoundOut.size());
+    }
+
+    private Account saveAccount(String accountNumber) {
+        return accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(1L).get()) // data.sql
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10_000L)
+                .registeredAt(BASE)
+                .build());
+    }
+
+    private void saveTransaction(Account account, String transactionId, LocalDateTime transactedAt) {
+        transactionRepository.save(Transaction.builder()
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .account(account)
+                .amount(1000L)
+                .balanceSnapShot(9000L)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+    private static final int CAPACITY = 16 + 96 * 4;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("기록한 거래 내역을 순서대로 읽는다")
+    void appendAndRead() throws Exception {
+        //given
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("j"), CAPACITY, false)) {
+            journal.append(entry("tx-1", 100L));
+            journal.append(entry("tx-2", 200L));
+
+            //when
+            TransactionJournal.Batch batch = journal.read(10);
+
+            //then
+            assertEquals(2, batch.getEntries().size());
+            assertEquals(2L, batch.getLastSequence());
+            TransactionJournal.Entry first = batch.getEntries().get(0);
+            assertEquals(12L, first.getAccountId());
+            assertEquals(TransactionType.USE, first.getTransactionType());
+            assertEquals(TransactionResultType.S, first.getTransactionResultType());
+            assertEquals(100L, first.getAmount());
+            assertEquals("tx-1", first.getTransactionId());
+            assertEquals("tx-2", batch.getEntries().get(1).getTransactionId());
+        }
+    }
+
+    @Test
+    @DisplayName("파일이 가득 차면 기록하지 않고, 반영 후에는 다시 기록할 수 있다")
+    void fullUntilFlushed() throws Exception {
+        //given
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("j"), CAPACITY, false)) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(journal.append(entry("tx-" + i, i)));
+            }
+
+            //when
+            boolean appendedWhenFull = journal.append(entry("tx-4", 4L));
+            journal.markFlushed(journal.read(10));
+
+            //then
+            assertFalse(appendedWhenFull);
+            assertEquals(0, journal.pendingCount());
+            assertTrue(journal.append(entry("tx-4", 4L)));
+            assertEquals(5L, journal.read(10).getLastSequence());
+        }
+    }
+
+    @Test
+    @DisplayName("다시 열면 DB 에 반영하지 않은 거래 내역부터 읽는다")
+    void recoverPendingAfterReopen() throws Exception {
+        //given
+        Path path = dir.resolve("j");
+        try (TransactionJournal journal = new TransactionJournal(path, CAPACITY, false)) {
+            journal.append(entry("tx-1", 100L));
+            journal.append(entry("tx-2", 200L));
+            journal.append(entry("tx-3", 300L));
+            journal.markFlushed(journal.read(1));
+        }
+
+        //when
+        try (TransactionJournal journal = new TransactionJournal(path, CAPACITY, false)) {
+            TransactionJournal.Batch batch = journal.read(10);
+
+            //then
+            assertEquals(2, journal.pendingCount());
+            assertEquals(3L, journal.lastSequence());
+            assertEquals("tx-2", batch.getEntries().get(0).getTransactionId());
+            assertEquals("tx-3", batch.getEntries().get(1).getTransactionId());
+        }
+    }
+
+    @Test
+    @DisplayName("끝까지 쓰면 반영된 자리부터 이어서 쓰고, 다시 열어도 이어진 순서대로 읽는다")
+    void wrapAroundAfterPartialFlush() throws Exception {
+        //given
+        Path path = dir.resolve("j");
+        try (TransactionJournal journal = new TransactionJournal(path, CAPACITY, false)) {
+            for (int i = 1; i <= 4; i++) {
+                journal.append(entry("tx-" + i, i));
+            }
+            journal.markFlushed(journal.read(3));
+
+            //when
+            boolean wrapped = journal.append(entry("tx-5", 5L))
+                    && journal.append(entry("tx-6", 6L))
+                    && journal.append(entry("tx-7", 7L));
+            boolean appendedWhenFull = journal.append(entry("tx-8", 8L));
+
+            //then
+            assertTrue(wrapped);
+            assertFalse(appendedWhenFull);
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(path, CAPACITY, false)) {
+            TransactionJournal.Batch batch = journal.read(10);
+
+            assertEquals(4, journal.pendingCount());
+            assertEquals(7L, batch.getLastSequence());
+            assertEquals("tx-4", batch.getEntries().get(0).getTransactionId());
+            assertEquals("tx-7", batch.getEntries().get(3).getTransactionId());
+        }
+    }
+
+    @Test
+    @DisplayName("커밋 결과가 정해지지 않은 레코드 앞에서 멈추고, 롤백된 레코드는 건너뛴다")
+    void readOnlyCommittedRecords() throws Exception {
+        //given
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("j"), CAPACITY, false)) {
+            int rolledBack = journal.appendPending(entry("tx-1", 100L));
+            journal.append(entry("tx-2", 200L));
+            int pending = journal.appendPending(entry("tx-3", 300L));
+            journal.append(entry("tx-4", 400L));
+            journal.complete(rolledBack, false);
+
+            //when
+            TransactionJournal.Batch beforeCommit = journal.read(10);
+            journal.complete(pending, true);
+            TransactionJournal.Batch afterCommit = journal.read(10);
+
+            //then
+            assertEquals(2, beforeCommit.getRecordCount());
+            assertEquals(1, beforeCommit.getEntries().size());
+            assertEquals("tx-2", beforeCommit.getEntries().get(0).getTransactionId());
+            assertEquals(4, afterCommit.getRecordCount());
+            assertEquals(3, afterCommit.getEntries().size());
+            assertEquals(4L, afterCommit.getLastSequence());
+        }
+    }
+
+    @Test
+    @DisplayName("다시 열었을 때 결과가 없는 레코드는 계좌 버전으로 커밋 여부를 정한다")
+    void resolvePendingAfterReopen() throws Exception {
+        //given
+        Path path = dir.resolve("j");
+        try (TransactionJournal journal = new TransactionJournal(path, CAPACITY, false)) {
+            journal.appendPending(entry("tx-1", 100L, 3L));
+            journal.appendPending(entry("tx-2", 200L, 4L));
+        }
+
+        //when
+        try (TransactionJournal journal = new TransactionJournal(path, CAPACITY, false)) {
+            int resolved = journal.resolvePending(entry -> entry.getAccountVersion() <= 3L);
+            TransactionJournal.Batch batch = journal.read(10);
+
+            //then
+            assertEquals(2, resolved);
+            assertEquals(2, batch.getRecordCount());
+            assertEquals(1, batch.getEntries().size());
+            assertEquals("tx-1", batch.getEntries().get(0).getTransactionId());
+            assertEquals(3L, batch.getEntries().get(0).getAccountVersion());
+        }
+    }
+
+    private static TransactionJournal.Entry entry(String transactionId, long amount, long accountVersion) {
+        return new TransactionJournal.Entry(12L, TransactionType.USE, TransactionResultType.S,
+                amount, 10_000L - amount, 1_650_000_000_000L, transactionId, accountVersion);
+    }
+
+    private static TransactionJournal.Entry entry(String transactionId, long amount) {
+        return new TransactionJournal.Entry(12L, TransactionType.USE, TransactionResultType.S,
+                amount, 10_000L - amount, 1_650_000_000_000L, transactionId);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LedgerMode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 커밋된 뒤에 저장되는 거래 내역을 확인하므로 테스트 트랜잭션 없이 실행한다.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionLedgerTest {
+    private static final int CAPACITY_MB = 1;
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("저널이 가득 차면 커밋하기 전에 요청을 실패시키고 잔액 변경도 롤백한다")
+    void rejectBeforeCommitWhenJournalIsFull() throws Exception {
+        //given
+        Account account = saveAccount("3100000001");
+        TransactionLedger ledger = ledger();
+        // writer 를 띄우지 않으므로 저널은 비워지지 않는다.
+        ledger.openJournal();
+        int journalRecords = (CAPACITY_MB * 1024 * 1024 - TransactionJournal.HEADER_SIZE)
+                / TransactionJournal.RECORD_SIZE;
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i <= journalRecords; i++) {
+            transactions.add(transaction(account, "ledger-full-" + i));
+        }
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    accountRepository.cancelBalance("3100000001", 100L, AccountStatus.IN_USE);
+                    ledger.saveAll(transactions);
+                }));
+        ledger.flush();
+
+        //then
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, exception.getErrorCode());
+        assertEquals(1_000L, accountRepository.findByAccountNumber("3100000001").get().getBalance());
+        assertFalse(transactionRepository.findByTransactionId("ledger-full-0").isPresent());
+        assertFalse(transactionRepository.findByTransactionId("ledger-full-" + journalRecords).isPresent());
+    }
+
+    @Test
+    @DisplayName("커밋 직전에 기록했더라도 롤백된 거래 내역은 저장하지 않는다")
+    void flushOnlyCommittedTransactions() throws Exception {
+        //given
+        Account account = saveAccount("3100000002");
+        TransactionLedger ledger = ledger();
+        ledger.openJournal();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.cancelBalance("3100000002", 100L, AccountStatus.IN_USE);
+            ledger.save(transaction(account, "ledger-rolled-back"));
+            // 저널에 기록한 뒤에 커밋이 실패하는 경우
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("commit failed");
+                }
+            });
+        }));
+        transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.cancelBalance("3100000002", 100L, AccountStatus.IN_USE);
+            ledger.save(transaction(account, "ledger-committed"));
+        });
+
+        //when
+        int flushed = ledger.flush();
+
+        //then
+        assertEquals(2, flushed);
+        assertFalse(transactionRepository.findByTransactionId("ledger-rolled-back").isPresent());
+        assertTrue(transactionRepository.findByTransactionId("ledger-committed").isPresent());
+    }
+
+    @Test
+    @DisplayName("커밋 결과를 기록하기 전에 죽었으면 계좌 버전이 오른 거래 내역만 저장한다")
+    void replayOnlyCommittedVersions() throws Exception {
+        //given
+        Account account = saveAccount("3100000003");
+        long version = accountRepository.findByAccountNumber("3100000003").get().getVersion();
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("ledger.journal"),
+                CAPACITY_MB * 1024 * 1024, false)) {
+            journal.appendPending(entry(account, "ledger-in-doubt-committed", version));
+            journal.appendPending(entry(account, "ledger-in-doubt-rolled-back", version + 1));
+        }
+        TransactionLedger ledger = ledger();
+
+        //when
+        ledger.openJournal();
+        int flushed = ledger.flush();
+
+        //then
+        assertEquals(2, flushed);
+        assertTrue(transactionRepository.findByTransactionId("ledger-in-doubt-committed").isPresent());
+        assertFalse(transactionRepository.findByTransactionId("ledger-in-doubt-rolled-back").isPresent());
+    }
+
+    private TransactionLedger ledger() {
+        return new TransactionLedger(transactionRepository, accountRepository,
+                transactionManager, mock(DailySummaryAggregator.class), LedgerMode.WRITE_BEHIND,
+                dir.resolve("ledger.journal").toString(), CAPACITY_MB, false, 500, 20);
+    }
+
+    private TransactionJournal.Entry entry(Account account, String transactionId, long accountVersion) {
+        return new TransactionJournal.Entry(account.getId(), TransactionType.USE, TransactionResultType.S,
+                100L, 900L, System.currentTimeMillis(), transactionId, accountVersion);
+    }
+
+    private Transaction transaction(Account account, String transactionId) {
+        return Transaction.builder()
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .account(account)
+                .amount(100L)
+                .balanceSnapShot(900L)
+                .transactionId(transactionId)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private Account saveAccount(String accountNumber) {
+        return accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(1L).get()) // data.sql
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1_000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -3,25 +3,59 @@ package com.example.account.service;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountSummary;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
 public class TransactionServiceTest {
 
+    @Mock
+    private TransactionLedger transactionLedger;
+
     @Mock
     private TransactionRepository transactionRepository;
 
@@ -31,6 +65,49 @@ public class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private BalanceUpdateExecutor balanceUpdateExecutor;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @Mock
+    private RecentTransactionCache recentTransactionCache;
+
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @Mock
+    private DailySummaryAggregator dailySummaryAggregator;
+
+    @Spy
+    private TransactionIdGenerator transactionIdGenerator = new SnowflakeTransactionIdGenerator(0);
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
+    @Spy
+    private ReadReplicaRouter readReplicaRouter = new ReadReplicaRouter(null, null, new SimpleMeterRegistry(), false, 1000);
+
+    @InjectMocks
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        given(balanceUpdateExecutor.getMode()).willReturn(ConcurrencyMode.LOCK);
+        given(balanceUpdateExecutor.execute(any()))
+                .willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        given(balanceUpdateExecutor.executeWithRetry(any()))
+                .willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        given(transactionLedger.save(any())).willAnswer(returnsFirstArg());
+    }
+
     @Test
     void successUseBalance() {
         //given
@@ -38,14 +115,15 @@ public class TransactionServiceTest {
                 .id(12L)
                 .name("Pobi")
                 .build();
-        given(accountRepository.findById(anyLong()))
-                .willReturn((Optional<Account>) Optional.of(user));
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
                                 .accountUser(user)
-                                .balance(0L)
-                                .accountNumber("100000012")
+                                .accountStatus(AccountStatus.IN_USE)
+                                .balance(10000L)
+                                .accountNumber("1000000012")
                         .build()));
 
 
@@ -56,7 +134,293 @@ public class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("캐시에서 계좌 소유자가 확인되면 사용자를 조회하지 않고, 잔액은 DB 에서 읽는다")
+    void successUseBalance_cachedOwner() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        given(accountCache.getAccount("1000000012"))
+                .willReturn(Optional.of(AccountSummary.builder()
+                        .userId(12L)
+                        .accountNumber("1000000012")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .build()));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(10000L)
+                        .accountNumber("1000000012")
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 1000L);
+
+        //then
+        assertEquals(9000L, transactionDto.getBalanceSnapShot());
+        verify(accountUserRepository, never()).findById(anyLong());
+        verify(accountCache).evictUserAccounts(12L);
+    }
+
+    @Test
+    @DisplayName("ATOMIC 모드 - 조건부 UPDATE 후 잔액 스냅샷 저장")
+    void successUseBalance_atomic() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        given(balanceUpdateExecutor.getMode()).willReturn(ConcurrencyMode.ATOMIC);
+        given(accountRepository.useBalance(12L, "1000000012", 1000L, AccountStatus.IN_USE))
+                .willReturn(1);
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(9000L)
+                        .accountNumber("1000000012")
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 1000L);
+
+        //then
+        assertEquals(9000L, transactionDto.getBalanceSnapShot());
+        verify(accountUserRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("ATOMIC 모드 - 차감된 행이 없으면 실패 사유를 찾아서 알려준다")
+    void useBalanceFailed_atomic_amountExceedBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        given(balanceUpdateExecutor.getMode()).willReturn(ConcurrencyMode.ATOMIC);
+        given(accountRepository.useBalance(anyLong(), anyString(), anyLong(), any()))
+                .willReturn(0);
+        given(accountUserRepository.findById(12L)).willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(100L)
+                        .accountNumber("1000000012")
+                        .build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionLedger, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("일괄 사용 - 같은 계좌는 순서대로 차감하고 실패한 항목만 F 로 응답")
+    void useBalanceBatch_partialFailure() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1500L)
+                .accountNumber("1000000012")
+                .build();
+        given(accountRepository.findByAccountNumberIn(any()))
+                .willReturn(Collections.singletonList(account));
+        given(accountUserRepository.findAllById(any()))
+                .willReturn(Collections.singletonList(user));
+
+        //when
+        List<UseBalance.Response> responses = transactionService.useBalanceBatch(Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 1000L),
+                new UseBalance.Request(12L, "1000000012", 1000L),
+                new UseBalance.Request(12L, "1000000099", 100L),
+                new UseBalance.Request(12L, "1000000012", 500L)
+        ));
+
+        //then
+        assertEquals(TransactionResultType.S, responses.get(0).getTransactionResult());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, responses.get(1).getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, responses.get(2).getErrorCode());
+        assertEquals(TransactionResultType.S, responses.get(3).getTransactionResult());
+        assertEquals(0L, account.getBalance());
+        verify(lockService).lock("1000000012");
+        verify(lockService).unlock("1000000012");
+        verify(transactionLedger).saveAll(argThat(transactions ->
+                ((List<?>) transactions).size() == 2));
+        verify(failedTransactionRecorder).record(TransactionType.USE, "1000000012", 1000L);
+        verify(failedTransactionRecorder).record(TransactionType.USE, "1000000099", 100L);
+    }
+
+    @Test
+    @DisplayName("다른 계좌의 거래를 커서로 넘기면 목록 조회가 실패한다")
+    void queryTransactionsFailed_cursorFromOtherAccount() {
+        //given
+        given(accountCache.getAccount("1000000012"))
+                .willReturn(Optional.of(AccountSummary.builder()
+                        .id(1L)
+                        .userId(12L)
+                        .accountNumber("1000000012")
+                        .build()));
+        given(transactionRepository.findByTransactionId("tx-1"))
+                .willReturn(Optional.of(Transaction.builder()
+                        .id(10L)
+                        .account(Account.builder().id(2L).accountNumber("1000000013").build())
+                        .transactionId("tx-1")
+                        .build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.queryTransactions("1000000012", "tx-1", 20));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(transactionRepository, never()).findByAccountIdBefore(anyLong(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 취소 - 최근 거래 캐시의 원거래로 검증하고 잔액을 더한다")
+    void successCancelBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        given(recentTransactionCache.get("tx-1"))
+                .willReturn(Optional.of(useTransaction("tx-1", 1000L, LocalDateTime.now())));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(9000L)
+                        .accountNumber("1000000012")
+                        .build()));
+        given(transactionRepository.save(any())).willAnswer(returnsFirstArg());
+
+        //when
+        TransactionDto transactionDto = transactionService.cancelBalance("tx-1", "1000000012", 1000L);
+
+        //then
+        assertEquals(10000L, transactionDto.getBalanceSnapShot());
+        assertEquals(TransactionType.CANCEL, transactionDto.getTransactionType());
+        assertEquals("tx-1-C", transactionDto.getTransactionId());
+        verify(transactionRepository, never()).findByTransactionId(anyString());
+        verify(recentTransactionCache).markCanceled(argThat(original ->
+                original.getTransactionId().equals("tx-1")));
+    }
+
+    @Test
+    @DisplayName("잔액 사용 취소 - 부분 취소, 1년 지난 거래, 이미 취소한 거래는 실패한다")
+    void cancelBalanceFailed_validation() {
+        //given
+        given(recentTransactionCache.get("tx-1"))
+                .willReturn(Optional.of(useTransaction("tx-1", 1000L, LocalDateTime.now())));
+        given(recentTransactionCache.get("tx-2"))
+                .willReturn(Optional.of(useTransaction("tx-2", 1000L, LocalDateTime.now().minusYears(1).minusDays(1))));
+        given(transactionRepository.findByTransactionId("tx-3"))
+                .willReturn(Optional.of(Transaction.builder()
+                        .account(Account.builder().accountNumber("1000000012").build())
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .amount(1000L)
+                        .transactionId("tx-3")
+                        .transactedAt(LocalDateTime.now())
+                        .build()));
+        given(transactionRepository.existsByTransactionId("tx-3-C")).willReturn(true);
+
+        //when
+        AccountException partial = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("tx-1", "1000000012", 500L));
+        AccountException tooOld = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("tx-2", "1000000012", 1000L));
+        AccountException canceled = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("tx-3", "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, partial.getErrorCode());
+        assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, tooOld.getErrorCode());
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELED, canceled.getErrorCode());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 취소 - 동시에 취소해서 취소 거래 id 가 겹치면 이미 취소된 거래로 알려준다")
+    void cancelBalanceFailed_concurrentCancel() {
+        //given
+        given(recentTransactionCache.get("tx-1"))
+                .willReturn(Optional.of(useTransaction("tx-1", 1000L, LocalDateTime.now())));
+        willThrow(new DataIntegrityViolationException("ux_transaction_transaction_id"))
+                .given(balanceUpdateExecutor).execute(any());
 
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("tx-1", "1000000012", 1000L));
 
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELED, exception.getErrorCode());
+        verify(recentTransactionCache, never()).markCanceled(any());
+    }
 
+    @Test
+    @DisplayName("이체 - 같은 계좌로는 이체할 수 없다")
+    void transferBalanceFailed_sameAccount() {
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(12L, "1000000012", "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.TRANSFER_SAME_ACCOUNT, exception.getErrorCode());
+        verify(lockService, never()).lockAll(any());
+    }
+
+    @Test
+    @DisplayName("이체 - 계좌 락을 계좌 번호 순서로 잡고 출금/입금 거래를 한 번에 저장한다")
+    void successTransferBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        given(accountUserRepository.findById(12L)).willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumberIn(any()))
+                .willReturn(Arrays.asList(
+                        Account.builder().accountUser(user).accountNumber("1000000012")
+                                .accountStatus(AccountStatus.IN_USE).balance(1000L).build(),
+                        Account.builder().accountUser(user).accountNumber("1000000013")
+                                .accountStatus(AccountStatus.IN_USE).balance(10000L).build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.transferBalance(
+                12L, "1000000013", "1000000012", 1000L);
+
+        //then
+        verify(lockService).lockAll(Arrays.asList("1000000013", "1000000012"));
+        assertEquals(TransactionType.TRANSFER_OUT, transactionDto.getTransactionType());
+        assertEquals(9000L, transactionDto.getBalanceSnapShot());
+        verify(transactionLedger).saveAll(argThat(transactions -> transactions.size() == 2
+                && transactions.get(1).getTransactionType() == TransactionType.TRANSFER_IN
+                && transactions.get(1).getBalanceSnapShot() == 2000L
+                && transactions.get(1).getTransactionId().equals(transactionDto.getTransactionId() + "-I")));
+    }
+
+    private static TransactionSummary useTransaction(String transactionId, long amount, LocalDateTime transactedAt) {
+        return TransactionSummary.builder()
+                .transactionId(transactionId)
+                .accountNumber("1000000012")
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(amount)
+                .transactedAt(transactedAt)
+                .build();
+    }
 }
@@ -0,0 +1,166 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 몇 개 안 되는 계좌 사이에 여러 스레드가 양방향으로 무작위 이체를 해도
+ * 교착 없이 끝나고, 계좌 잔액의 합과 거래 내역이 맞아야 한다.
+ * 여러 트랜잭션이 동시에 커밋하므로 테스트 트랜잭션 없이 실행한다.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.show_sql=false")
+@Import(TransactionLedger.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferBalanceConcurrencyTest {
+    private static final int ACCOUNTS = 5;
+    private static final long INITIAL_BALANCE = 10_000L;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS = 2_000;
+
+    @MockBean
+    private DailySummaryAggregator dailySummaryAggregator;
+
+    @Autowired
+    private TransactionLedger transactionLedger;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    void conserveMoneyUnderConcurrentTransfers(ConcurrencyMode mode) throws Exception {
+        //given
+        String prefix = String.valueOf(6 + mode.ordinal());
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers.add(saveAccount(prefix + "00000000" + i).getAccountNumber());
+        }
+        TransactionService transactionService = transactionService(mode);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger succeeded = new AtomicInteger();
+        Map<ErrorCode, AtomicInteger> failed = new ConcurrentHashMap<>();
+
+        //when
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            results.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int from = random.nextInt(ACCOUNTS);
+                int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                try {
+                    transactionService.transferBalance(1L, accountNumbers.get(from), accountNumbers.get(to),
+                            10L + random.nextInt(3_000));
+                    succeeded.incrementAndGet();
+                } catch (AccountException e) {
+                    failed.computeIfAbsent(e.getErrorCode(), code -> new AtomicInteger()).incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(); // 예상하지 못한 예외(교착으로 인한 DB 오류 등)는 여기서 터진다.
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        //then
+        List<Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers);
+        Set<Long> accountIds = accounts.stream().map(Account::getId).collect(Collectors.toSet());
+        assertEquals(ACCOUNTS * INITIAL_BALANCE, accounts.stream().mapToLong(Account::getBalance).sum());
+        assertTrue(accounts.stream().allMatch(account -> account.getBalance() >= 0));
+        assertTrue(succeeded.get() > TRANSFERS / 2, mode + " succeeded " + succeeded + ", failed " + failed);
+
+        Map<Long, List<Transaction>> transactions = transactionRepository.findAll().stream()
+                .filter(transaction -> accountIds.contains(transaction.getAccount().getId()))
+                .collect(Collectors.groupingBy(transaction -> transaction.getAccount().getId()));
+        assertEquals(succeeded.get() * 2, transactions.values().stream().mapToInt(List::size).sum());
+        for (Account account : accounts) {
+            long balance = INITIAL_BALANCE;
+            for (Transaction transaction : transactions.getOrDefault(account.getId(), new ArrayList<>())) {
+                balance += transaction.getTransactionType() == TRANSFER_IN ? transaction.getAmount()
+                        : transaction.getTransactionType() == TRANSFER_OUT ? -transaction.getAmount() : 0;
+            }
+            assertEquals(account.getBalance(), balance, account.getAccountNumber());
+        }
+    }
+
+    /**
+     * Redis 락은 항상 잡히는 것으로 두고, 계좌 번호 단위 로컬 락만 실제로 경쟁한다.
+     */
+    private TransactionService transactionService(ConcurrencyMode mode) throws InterruptedException {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock rLock = mock(RLock.class);
+        given(redissonClient.getLock(anyString())).willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        return new TransactionService(transactionLedger, transactionRepository, accountUserRepository,
+                accountRepository,
+                new BalanceUpdateExecutor(transactionManager, meterRegistry, mode, 20, 1, 20),
+                new LockService(redissonClient, meterRegistry, 5_000, 30_000, 1024),
+                mock(AccountCache.class), mock(BalanceEngine.class), mock(RecentTransactionCache.class),
+                mock(FailedTransactionRecorder.class), dailySummaryAggregator,
+                new SnowflakeTransactionIdGenerator(0), mock(BalanceSlotService.class),
+                new ReadReplicaRouter(null, transactionManager, meterRegistry, false, 1000));
+    }
+
+    private Account saveAccount(String accountNumber) {
+        return accountRepository.save(Account.builder()
+                .accountUser(accountUserRepository.findById(1L).get()) // data.sql
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(INITIAL_BALANCE)
+                .registeredAt(LocalDateTime.now())
+                .build());
+    }
+}